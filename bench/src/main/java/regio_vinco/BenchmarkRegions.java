@@ -0,0 +1,145 @@
+package regio_vinco;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import javafx.application.Platform;
+import javafx.scene.control.ProgressIndicator;
+import javax.imageio.ImageIO;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class holds what the benchmarks share: the regions they run on,
+ * where those regions' files are, and a headless JavaFX toolkit for the
+ * benchmarks that need one.
+ *
+ * @author McKillaGorilla
+ */
+public class BenchmarkRegions {
+    // THE WORLD, A CONTINENT, AND THE COUNTRIES WITH THE MOST SUB-REGIONS
+    // THAT PASS VALIDATION, GIVEN AS PATHS UNDER THE MAPS DIRECTORY
+    public static final String THE_WORLD = "The World";
+    public static final String EUROPE = "The World/Europe";
+    public static final String TURKEY = "The World/Europe/Turkey";
+    public static final String ENGLAND = "The World/Europe/England";
+
+    private static boolean platformStarted = false;
+
+    /**
+     * Gets the name of a region from its path under the maps directory.
+     */
+    public static String getRegionName(String regionPath) {
+        return regionPath.substring(regionPath.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Gets the directory a region's files are in.
+     */
+    public static String getRegionDirectory(String regionPath) {
+        return getMapsPath() + regionPath + "/";
+    }
+
+    /**
+     * Gets the directory a region's directory is in.
+     */
+    public static String getParentDirectory(String regionPath) {
+        return getMapsPath() + regionPath.substring(0, regionPath.lastIndexOf('/') + 1);
+    }
+
+    // HELPER METHOD FOR MAKING SURE WE'RE RUNNING WHERE THE MAPS ARE
+    private static String getMapsPath() {
+        if (!new File(MAPS_PATH).isDirectory()) {
+            throw new IllegalStateException("Run the benchmarks from the project root, " + MAPS_PATH + " wasn't found");
+        }
+        return MAPS_PATH;
+    }
+
+    public static File getMapFile(String regionPath) {
+        return new File(getRegionDirectory(regionPath) + getRegionName(regionPath) + " Map.png");
+    }
+
+    public static File getDataFile(String regionPath) {
+        return new File(getRegionDirectory(regionPath) + getRegionName(regionPath) + " Data.xml");
+    }
+
+    /**
+     * Loads a region's map the slow way, decoding its image and parsing its
+     * Data.xml file, without needing JavaFX.
+     */
+    public static RegionMap loadRegionMap(String regionPath) throws Exception {
+        BufferedImage image = ImageIO.read(getMapFile(regionPath));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        return RegionMap.build(getRegionName(regionPath), pixels, width, height,
+                new RegionDataLoader().loadSubRegions(getDataFile(regionPath).getPath(), MAPS_PATH + SCHEMA_NAME));
+    }
+
+    /**
+     * Decodes a region's map image into ARGB pixels, row by row.
+     */
+    public static int[] decodeMap(String regionPath) throws IOException {
+        BufferedImage image = ImageIO.read(getMapFile(regionPath));
+        int width = image.getWidth();
+        int height = image.getHeight();
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Sets up a game on a region exactly as the game does and installs it in
+     * a new data model, which shares the loader's services but plays no
+     * anthems. The region's map must already be loaded, and JavaFX started.
+     *
+     * @param prepared The region to set up, with its map loaded.
+     * @param statisticsPath Where to keep the region's records, so the
+     * player's aren't touched.
+     * @return The data model, with the region installed on its map.
+     */
+    public static RegioVincoDataModel loadDataModel(PreparedRegion prepared, String statisticsPath) throws Exception {
+        StatisticsStore statisticsStore = new StatisticsStore(statisticsPath, MAPS_PATH);
+        FlagImageService flagImageService = new FlagImageService();
+        RegionIndex regionIndex = RegionIndex.build(MAPS_PATH);
+        RegionLoader loader = new RegionLoader(new ProgressIndicator(), statisticsStore, flagImageService, regionIndex);
+        loader.prepareGame(prepared);
+        return runOnFxThread(() -> {
+            RegioVincoDataModel dataModel = new RegioVincoDataModel(statisticsStore, flagImageService,
+                    regionIndex, null);
+            dataModel.installRegion(prepared);
+            dataModel.setMapImage(prepared.mapImage);
+            return dataModel;
+        });
+    }
+
+    /**
+     * Starts JavaFX with no screen, the first time it's called.
+     */
+    public static synchronized void startPlatform() throws InterruptedException {
+        if (!platformStarted) {
+            System.setProperty("glass.platform", "Monocle");
+            System.setProperty("monocle.platform", "Headless");
+            System.setProperty("prism.order", "sw");
+            CountDownLatch started = new CountDownLatch(1);
+            Platform.startup(started::countDown);
+            started.await();
+            platformStarted = true;
+        }
+    }
+
+    /**
+     * Runs something on the JavaFX thread and waits for its result.
+     */
+    public static <T> T runOnFxThread(Callable<T> callable) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture();
+        Platform.runLater(() -> {
+            try {
+                result.complete(callable.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get();
+    }
+}
@@ -0,0 +1,122 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks what the data model does while a game is being
+ * played: recoloring a sub-region on the map, finding the sub-region under
+ * a click, and updating the statistics along the bottom of the map, both
+ * in a frame where nothing changed and in one where the timer ticked. The
+ * region is loaded exactly as the game loads it, on a JavaFX toolkit with
+ * no screen. Run with -prof gc to see that an unchanged frame allocates
+ * nothing.
+ *
+ * Sub-regions are recolored in sprite mode here, which is the game's
+ * default. SpanRecoloringBenchmark times span mode, where the map's pixels
+ * are rewritten instead.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataModelBenchmark {
+    // HOW MANY CLICK LOCATIONS WE CYCLE THROUGH
+    private static final int NUM_POINTS = 4096;
+
+    // THE LONGEST TIME THE TIMER SHOWS, IN SECONDS
+    private static final int MAX_SECONDS = 7200;
+
+    @Param({BenchmarkRegions.THE_WORLD, BenchmarkRegions.EUROPE, BenchmarkRegions.TURKEY, BenchmarkRegions.ENGLAND})
+    public String region;
+
+    private RegioVincoDataModel model;
+    private GameHud hud;
+    private String[] subRegionNames;
+    private int[] pointsX;
+    private int[] pointsY;
+    private File journalFile;
+    private int nextSubRegion;
+    private int nextPoint;
+    private int nextSeconds;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkRegions.startPlatform();
+        String regionName = BenchmarkRegions.getRegionName(region);
+        PreparedRegion prepared = new PreparedRegion(regionName, regionName + " Map.png",
+                BenchmarkRegions.getParentDirectory(region), 1, true);
+        prepared.regionMap = BenchmarkRegions.loadRegionMap(region);
+
+        // WE KEEP OUR RECORDS OUT OF THE PLAYER'S
+        journalFile = File.createTempFile("regio_vinco", ".journal");
+        journalFile.delete();
+        model = BenchmarkRegions.loadDataModel(prepared, journalFile.getPath());
+        hud = BenchmarkRegions.runOnFxThread(() -> new GameHud());
+        hud.update(0, prepared.subRegionsByLabel.length - 1, 0, 0);
+
+        subRegionNames = prepared.subRegionsByLabel;
+        Random random = new Random(42);
+        int width = prepared.regionMap.getWidth();
+        int height = prepared.regionMap.getHeight();
+        pointsX = new int[NUM_POINTS];
+        pointsY = new int[NUM_POINTS];
+        for (int i = 0; i < NUM_POINTS; i++) {
+            pointsX[i] = random.nextInt(width);
+            pointsY[i] = random.nextInt(height);
+        }
+        nextSubRegion = 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        new File(journalFile.getPath() + ".tmp").delete();
+        journalFile.delete();
+    }
+
+    @Benchmark
+    public void changeSubRegionColorOnMapSprites() {
+        // LABEL 0 IS NO SUB-REGION, SO WE SKIP IT
+        int label = nextSubRegion;
+        nextSubRegion = (label + 1 < subRegionNames.length) ? label + 1 : 1;
+        Color color = ((label & 1) == 0) ? Color.GREEN : Color.RED;
+        model.changeSubRegionColorOnMap(null, subRegionNames[label], color);
+    }
+
+    @Benchmark
+    public String getSubRegionAt() {
+        int i = nextPoint;
+        nextPoint = (i + 1) & (NUM_POINTS - 1);
+        return model.getSubRegionAt(pointsX[i], pointsY[i]);
+    }
+
+    @Benchmark
+    public void updateHudUnchanged() {
+        hud.update(0, subRegionNames.length - 1, 0, 0);
+    }
+
+    @Benchmark
+    public void updateHudEachSecond() {
+        int seconds = nextSeconds;
+        nextSeconds = (seconds < MAX_SECONDS) ? seconds + 1 : 0;
+        hud.update(0, subRegionNames.length - 1, 0, seconds);
+    }
+}
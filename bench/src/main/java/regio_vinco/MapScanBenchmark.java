@@ -0,0 +1,88 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks the pixel work done when a region is loaded by
+ * reset: scanning the map into labels and spans, painting the map for play,
+ * and loading an already scanned map from its pack instead.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapScanBenchmark {
+    @Param({BenchmarkRegions.THE_WORLD, BenchmarkRegions.EUROPE, BenchmarkRegions.TURKEY, BenchmarkRegions.ENGLAND})
+    public String region;
+
+    private String regionName;
+    private int[] pixels;
+    private int width;
+    private int height;
+    private ArrayList<SubRegion> subRegions;
+    private RegionMap regionMap;
+    private int[] labelColors;
+    private File mapFile;
+    private File dataFile;
+    private File packFile;
+
+    @Setup
+    public void setup() throws Exception {
+        regionName = BenchmarkRegions.getRegionName(region);
+        regionMap = BenchmarkRegions.loadRegionMap(region);
+        pixels = regionMap.getPixels();
+        width = regionMap.getWidth();
+        height = regionMap.getHeight();
+        subRegions = regionMap.getSubRegions();
+        labelColors = new int[subRegions.size() + 1];
+        for (int label = 1; label < labelColors.length; label++) {
+            labelColors[label] = subRegions.get(label - 1).getKeyArgb();
+        }
+
+        // WE PACK THE MAP TO A FILE OF OUR OWN SO THE GAME'S ISN'T TOUCHED
+        mapFile = BenchmarkRegions.getMapFile(region);
+        dataFile = BenchmarkRegions.getDataFile(region);
+        packFile = File.createTempFile("regio_vinco", MapPack.MAP_PACK_SUFFIX.trim());
+        MapPack.write(regionMap, mapFile, dataFile, packFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        packFile.delete();
+    }
+
+    @Benchmark
+    public RegionMap scan() {
+        return RegionMap.build(regionName, pixels, width, height, subRegions);
+    }
+
+    @Benchmark
+    public int[] paint() {
+        int[] mapPixels = pixels.clone();
+        MapPixelClassifier.paint(mapPixels, regionMap.getLabelMap(), mapPixels[0], labelColors);
+        return mapPixels;
+    }
+
+    @Benchmark
+    public RegionMap loadPack() throws Exception {
+        return MapPack.load(regionName, packFile, mapFile, dataFile);
+    }
+}
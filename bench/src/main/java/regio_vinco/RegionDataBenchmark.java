@@ -0,0 +1,61 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class benchmarks reading a region's Data.xml file, both validating
+ * it every time, as the first load of a region does, and trusting it once
+ * it has passed, as every later load does.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionDataBenchmark {
+    @Param({BenchmarkRegions.THE_WORLD, BenchmarkRegions.EUROPE, BenchmarkRegions.TURKEY, BenchmarkRegions.ENGLAND})
+    public String region;
+
+    private String dataFilePath;
+    private String schemaFilePath;
+    private RegionDataLoader validatingLoader;
+    private RegionDataLoader trustingLoader;
+
+    @Setup
+    public void setup() throws Exception {
+        dataFilePath = BenchmarkRegions.getDataFile(region).getPath();
+        schemaFilePath = MAPS_PATH + SCHEMA_NAME;
+        validatingLoader = new RegionDataLoader();
+        trustingLoader = new RegionDataLoader(true);
+
+        // SO THE SCHEMA IS COMPILED AND THE FILE TRUSTED BEFORE WE START
+        validatingLoader.loadSubRegions(dataFilePath, schemaFilePath);
+        trustingLoader.loadSubRegions(dataFilePath, schemaFilePath);
+    }
+
+    @Benchmark
+    public ArrayList<SubRegion> parseAndValidate() throws Exception {
+        return validatingLoader.loadSubRegions(dataFilePath, schemaFilePath);
+    }
+
+    @Benchmark
+    public ArrayList<SubRegion> parseTrusted() throws Exception {
+        return trustingLoader.loadSubRegions(dataFilePath, schemaFilePath);
+    }
+}
@@ -0,0 +1,364 @@
+package regio_vinco;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.image.Image;
+import javafx.stage.Stage;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class plays whole games of Regio Vinco with no screen and no player.
+ * It boots the real game on a headless JavaFX toolkit, loads each map the
+ * way the game's buttons do, and has a scripted player click the pixels of
+ * the sub-region at the bottom of the stack, sometimes clicking a wrong one
+ * on purpose. Between clicks it runs the frames a real player would have
+ * seen while thinking, against a virtual clock, so a game takes only as
+ * long as the work in it.
+ *
+ * When it's done it reports games and clicks per second, and the latency
+ * of each phase of a game, and exits with 1 if any game couldn't be
+ * finished, so it can be run as a check. Run it from the project root with
+ *
+ *   java -cp bench/target/benchmarks.jar regio_vinco.ScriptedPlayerSimulator
+ *
+ * adding any of --games N (games per map), --miss-rate P (chance of a
+ * wrong click), --think-millis T (virtual time between clicks), --seed S,
+ * --game-type 1|2|3 (names, leaders or capitals) and --maps A,B (region
+ * paths under the maps directory, like "The World/Europe").
+ *
+ * @author McKillaGorilla
+ */
+public class ScriptedPlayerSimulator {
+    // HOW LONG WE WAIT FOR A MAP TO LOAD BEFORE GIVING UP ON IT
+    private static final long LOAD_TIMEOUT_SECONDS = 60;
+
+    // HOW MANY WRONG CLICKS IN A ROW MEAN A GAME IS STUCK
+    private static final int MAX_MISSES_PER_TARGET = 100;
+
+    // THE SETTINGS
+    private int gamesPerMap = 1;
+    private double missRate = 0.2;
+    private long thinkMillis = 1500;
+    private long seed = 42;
+    private int gameType = 1;
+    private ArrayList<String> maps = new ArrayList();
+
+    // THE GAME BEING DRIVEN
+    private RegioVincoGame game;
+    private RegioVincoDataModel dataModel;
+    private VirtualClock clock;
+    private Random random;
+    private int mapWidth;
+
+    // WHAT WE MEASURE
+    private LinkedHashMap<String, PhaseLatency> phases;
+    private int gamesPlayed;
+    private int clicks;
+    private ArrayList<String> failures;
+
+    public static void main(String[] args) throws Exception {
+        ScriptedPlayerSimulator simulator = new ScriptedPlayerSimulator();
+        boolean passed = false;
+        try {
+            simulator.parseArguments(args);
+            passed = simulator.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        Platform.exit();
+        System.exit(passed ? 0 : 1);
+    }
+
+    // HELPER METHOD FOR READING THE SETTINGS FROM THE COMMAND LINE
+    private void parseArguments(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    gamesPerMap = Integer.parseInt(value);
+                    break;
+                case "--miss-rate":
+                    missRate = Double.parseDouble(value);
+                    break;
+                case "--think-millis":
+                    thinkMillis = Long.parseLong(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--game-type":
+                    gameType = Integer.parseInt(value);
+                    break;
+                case "--maps":
+                    maps.addAll(Arrays.asList(value.split(",")));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if ((args.length % 2) != 0) {
+            throw new IllegalArgumentException("No value given for " + args[args.length - 1]);
+        }
+    }
+
+    /**
+     * Plays every game and prints the report.
+     *
+     * @return True if every game was played to a win.
+     */
+    public boolean run() throws Exception {
+        // KEEP THE SIMULATED RECORDS OUT OF THE PLAYER'S
+        File journalFile = Files.createTempFile("regio_vinco", ".journal").toFile();
+        journalFile.delete();
+        journalFile.deleteOnExit();
+        new File(journalFile.getPath() + ".tmp").deleteOnExit();
+        System.setProperty("regio_vinco.statistics", journalFile.getPath());
+
+        if (maps.isEmpty()) {
+            findMaps(new File(BenchmarkRegions.getRegionDirectory(WORLD_NAME)), WORLD_NAME);
+        }
+        random = new Random(seed);
+        clock = new VirtualClock();
+        phases = new LinkedHashMap();
+        for (String phase : new String[]{"load", "correct click", "wrong click", "frame", "win"}) {
+            phases.put(phase, new PhaseLatency(phase));
+        }
+        failures = new ArrayList();
+
+        BenchmarkRegions.startPlatform();
+        BenchmarkRegions.runOnFxThread(() -> {
+            // THERE MAY BE NO SOUND DEVICE, SO THE GAME PLAYS NO EFFECTS OR
+            // ANTHEMS AND NEVER TRIES TO OPEN ANYTHING TO PLAY THEM ON
+            game = new RegioVincoGame(new Stage()) {
+                @Override
+                protected SoundEffectService makeSoundEffectService() {
+                    return new SilentSoundEffectService();
+                }
+
+                @Override
+                protected RegioVincoDataModel makeDataModel() {
+                    return new RegioVincoDataModel(new StatisticsStore(STATISTICS_PATH, MAPS_PATH),
+                            new FlagImageService(), RegionIndex.build(MAPS_PATH), null);
+                }
+            };
+            game.audio = new SilentAudioManager();
+            game.setMusic(false);
+            game.setSoundEffects(false);
+            dataModel = (RegioVincoDataModel) game.getDataModel();
+            dataModel.setClock(clock);
+            return null;
+        });
+
+        long start = System.nanoTime();
+        for (String map : maps) {
+            for (int i = 0; i < gamesPerMap; i++) {
+                playGame(map);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        BenchmarkRegions.runOnFxThread(() -> {
+            dataModel.saveStatistics();
+            return null;
+        });
+        printReport(elapsed);
+        return failures.isEmpty();
+    }
+
+    // HELPER METHOD FOR FINDING EVERY MAP WE CAN PLAY, WHICH ARE THE
+    // REGIONS WITH BOTH A MAP AND A DATA FILE
+    private void findMaps(File directory, String regionPath) {
+        String name = directory.getName();
+        if (new File(directory, name + " Map.png").exists() && new File(directory, name + " Data.xml").exists()) {
+            maps.add(regionPath);
+        }
+        File[] subDirectories = directory.listFiles(File::isDirectory);
+        if (subDirectories != null) {
+            Arrays.sort(subDirectories);
+            for (File subDirectory : subDirectories) {
+                findMaps(subDirectory, regionPath + "/" + subDirectory.getName());
+            }
+        }
+    }
+
+    // HELPER METHOD FOR PLAYING ONE GAME ON A MAP, FROM LOADING IT TO WINNING
+    private void playGame(String map) throws Exception {
+        String regionName = BenchmarkRegions.getRegionName(map);
+
+        // LOAD IT THE WAY THE GAME BUTTONS DO. THE LOAD IS DONE ONCE THE
+        // INDICATOR GOES AWAY AND THE GAME HAS BEEN SWAPPED IN AFTER IT
+        CompletableFuture<Long> loaded = new CompletableFuture();
+        ChangeListener<Boolean> loadListener = (observable, wasVisible, visible) -> {
+            if (!visible) {
+                Platform.runLater(() -> loaded.complete(System.nanoTime()));
+            }
+        };
+        long loadStart = BenchmarkRegions.runOnFxThread(() -> {
+            dataModel.getLoadingIndicator().visibleProperty().addListener(loadListener);
+            dataModel.setGameType(gameType);
+            dataModel.setRepeat(true);
+            dataModel.setCurrentDirectory(BenchmarkRegions.getParentDirectory(map));
+            dataModel.setRegionName(regionName);
+            dataModel.setRegionMapName(regionName + " Map.png");
+            long now = System.nanoTime();
+            dataModel.reset(game);
+            return now;
+        });
+        long loadEnd;
+        try {
+            loadEnd = loaded.get(LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } finally {
+            BenchmarkRegions.runOnFxThread(() -> {
+                dataModel.getLoadingIndicator().visibleProperty().removeListener(loadListener);
+                return null;
+            });
+        }
+        if (BenchmarkRegions.runOnFxThread(() -> dataModel.getSubRegionStack().isEmpty())) {
+            failures.add(map + ": didn't load");
+            return;
+        }
+        phases.get("load").add(loadEnd - loadStart);
+
+        // THEN PLAY IT ALL IN ONE GO ON THE JAVAFX THREAD, JUST AS THE
+        // CLICKS AND FRAMES WOULD HAVE BEEN
+        String failure = BenchmarkRegions.runOnFxThread(() -> playLoadedGame());
+        if (failure != null) {
+            failures.add(map + ": " + failure);
+        } else {
+            gamesPlayed++;
+        }
+    }
+
+    // HELPER METHOD FOR CLICKING THROUGH A LOADED GAME, RETURNING WHY IT
+    // COULDN'T BE WON, OR NULL IF IT WAS
+    private String playLoadedGame() {
+        HashMap<String, Integer> pixels = findSubRegionPixels();
+        ArrayList<String> subRegions = new ArrayList(pixels.keySet());
+        Collections.sort(subRegions);
+        long frameMillis = 1000 / TARGET_FRAME_RATE;
+        long framesPerClick = Math.max(1, thinkMillis / frameMillis);
+        int misses = 0;
+
+        while (!dataModel.getSubRegionStack().isEmpty()) {
+            // THINK, WHILE THE GAME KEEPS RUNNING
+            for (long frame = 0; frame < framesPerClick; frame++) {
+                clock.advance(frameMillis);
+                long frameStart = System.nanoTime();
+                game.beginUsingData();
+                try {
+                    game.update(1.0);
+                } finally {
+                    game.endUsingData();
+                }
+                phases.get("frame").add(System.nanoTime() - frameStart);
+            }
+
+            // THEN CLICK, SOMETIMES ON PURPOSE ON THE WRONG SUB-REGION
+            String target = dataModel.getSubRegionStack().getFirst().getSubRegion();
+            if (!pixels.containsKey(target)) {
+                return "\"" + target + "\" has no pixels on the map";
+            }
+            boolean miss = (subRegions.size() > 1) && (random.nextDouble() < missRate);
+            String clicked = target;
+            while (miss && clicked.equals(target)) {
+                clicked = subRegions.get(random.nextInt(subRegions.size()));
+            }
+            int pixel = pixels.get(clicked);
+            boolean last = !miss && (dataModel.getSubRegionStack().size() == 1);
+            long clickStart = System.nanoTime();
+            game.beginUsingData();
+            try {
+                dataModel.respondToMapSelection(game, pixel % mapWidth, pixel / mapWidth);
+            } finally {
+                game.endUsingData();
+            }
+            long clickTime = System.nanoTime() - clickStart;
+            clicks++;
+            phases.get(last ? "win" : (miss ? "wrong click" : "correct click")).add(clickTime);
+
+            misses = miss ? misses + 1 : 0;
+            if (misses > MAX_MISSES_PER_TARGET) {
+                return "stuck on \"" + target + "\"";
+            }
+        }
+        return dataModel.won() ? null : "the stack emptied without a win";
+    }
+
+    // HELPER METHOD FOR PICKING A RANDOM PIXEL OF EACH SUB-REGION, THE WAY
+    // A PLAYER WOULD FIND IT, BY LOOKING AT THE MAP. PIXELS ARE GIVEN AS
+    // THEIR INDEX IN THE MAP, ROW BY ROW
+    private HashMap<String, Integer> findSubRegionPixels() {
+        HashMap<String, Integer> pixels = new HashMap();
+        HashMap<String, Integer> counts = new HashMap();
+        Image mapImage = game.getGUIImages().get(MAP_TYPE).getImage();
+        mapWidth = (int) mapImage.getWidth();
+        int height = (int) mapImage.getHeight();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                String subRegion = dataModel.getSubRegionAt(x, y);
+                if (subRegion != null) {
+                    // EVERY PIXEL OF A SUB-REGION IS EQUALLY LIKELY TO BE THE ONE KEPT
+                    int count = counts.merge(subRegion, 1, Integer::sum);
+                    if (random.nextInt(count) == 0) {
+                        pixels.put(subRegion, (y * mapWidth) + x);
+                    }
+                }
+            }
+        }
+        return pixels;
+    }
+
+    // HELPER METHOD FOR PRINTING WHAT WE MEASURED
+    private void printReport(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%d maps, %d games won, %d clicks in %.2f s%n", maps.size(), gamesPlayed, clicks, seconds);
+        System.out.printf("%.2f games/s, %.1f clicks/s%n", gamesPlayed / seconds, clicks / seconds);
+        System.out.printf("%-14s %8s %10s %10s %10s%n", "phase", "count", "p50 us", "p99 us", "max us");
+        for (PhaseLatency phase : phases.values()) {
+            System.out.printf("%-14s %8d %10.1f %10.1f %10.1f%n", phase.name, phase.count,
+                    phase.percentile(50) / 1e3, phase.percentile(99) / 1e3, phase.percentile(100) / 1e3);
+        }
+        for (String failure : failures) {
+            System.out.println("FAILED " + failure);
+        }
+    }
+
+    /**
+     * This class keeps every latency measured for one phase of a game.
+     */
+    private static class PhaseLatency {
+        private String name;
+        private long[] samples = new long[1024];
+        private int count;
+
+        PhaseLatency(String initName) {
+            name = initName;
+        }
+
+        void add(long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+        }
+
+        long percentile(double percent) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil((percent / 100) * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+    }
+}
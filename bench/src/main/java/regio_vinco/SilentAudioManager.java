@@ -0,0 +1,28 @@
+package regio_vinco;
+
+import audio_manager.AudioManager;
+
+/**
+ * This class is an audio manager that plays nothing, for running the game
+ * where there may be no sound device to open clips on.
+ *
+ * @author McKillaGorilla
+ */
+public class SilentAudioManager extends AudioManager {
+    @Override
+    public void loadAudio(String audioName, String audioFileName) {
+    }
+
+    @Override
+    public void play(String audioName, boolean loop) {
+    }
+
+    @Override
+    public boolean isPlaying(String audioName) {
+        return false;
+    }
+
+    @Override
+    public void stop(String audioName) {
+    }
+}
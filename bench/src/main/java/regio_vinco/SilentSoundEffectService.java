@@ -0,0 +1,21 @@
+package regio_vinco;
+
+/**
+ * This class is a sound effect service that plays nothing, for running the
+ * game where there may be no sound device to open clips on.
+ *
+ * @author McKillaGorilla
+ */
+public class SilentSoundEffectService extends SoundEffectService {
+    public SilentSoundEffectService() {
+        super(0, new LatencyHistogram());
+    }
+
+    @Override
+    public void load(String name, String path) {
+    }
+
+    @Override
+    public void play(String name) {
+    }
+}
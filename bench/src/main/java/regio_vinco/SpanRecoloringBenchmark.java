@@ -0,0 +1,76 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks recoloring a sub-region on the map in span mode,
+ * where the game rewrites the map's pixels one span at a time rather than
+ * recoloring the sub-region's sprite. Span mode is chosen when the JVM
+ * starts, so this runs in a fork of its own with sprites turned off. Its
+ * results sit next to DataModelBenchmark's, which recolors in sprite mode.
+ *
+ * @author McKillaGorilla
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dregio_vinco.sprites=false")
+public class SpanRecoloringBenchmark {
+    @Param({BenchmarkRegions.THE_WORLD, BenchmarkRegions.EUROPE, BenchmarkRegions.TURKEY, BenchmarkRegions.ENGLAND})
+    public String region;
+
+    private RegioVincoDataModel model;
+    private String[] subRegionNames;
+    private File journalFile;
+    private int nextSubRegion;
+
+    @Setup
+    public void setup() throws Exception {
+        if (RegioVinco.SPRITE_RECOLORING) {
+            throw new IllegalStateException("Run with -Dregio_vinco.sprites=false to time span mode");
+        }
+        BenchmarkRegions.startPlatform();
+        String regionName = BenchmarkRegions.getRegionName(region);
+        PreparedRegion prepared = new PreparedRegion(regionName, regionName + " Map.png",
+                BenchmarkRegions.getParentDirectory(region), 1, true);
+        prepared.regionMap = BenchmarkRegions.loadRegionMap(region);
+
+        // WE KEEP OUR RECORDS OUT OF THE PLAYER'S
+        journalFile = File.createTempFile("regio_vinco", ".journal");
+        journalFile.delete();
+        model = BenchmarkRegions.loadDataModel(prepared, journalFile.getPath());
+        subRegionNames = prepared.subRegionsByLabel;
+        nextSubRegion = 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        new File(journalFile.getPath() + ".tmp").delete();
+        journalFile.delete();
+    }
+
+    @Benchmark
+    public void changeSubRegionColorOnMapSpans() {
+        // LABEL 0 IS NO SUB-REGION, SO WE SKIP IT
+        int label = nextSubRegion;
+        nextSubRegion = (label + 1 < subRegionNames.length) ? label + 1 : 1;
+        Color color = ((label & 1) == 0) ? Color.GREEN : Color.RED;
+        model.changeSubRegionColorOnMap(null, subRegionNames[label], color);
+    }
+}
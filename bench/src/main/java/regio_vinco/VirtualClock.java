@@ -0,0 +1,32 @@
+package regio_vinco;
+
+/**
+ * This class is a game clock that only moves when it's told to, so a
+ * simulated player can think for a second without anyone waiting a second.
+ *
+ * @author McKillaGorilla
+ */
+public class VirtualClock implements GameClock {
+    private volatile long nanoTime;
+
+    /**
+     * Constructs a clock starting from the system's monotonic time.
+     */
+    public VirtualClock() {
+        nanoTime = System.nanoTime();
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Moves the clock forward.
+     *
+     * @param millis How far to move it, in milliseconds.
+     */
+    public synchronized void advance(long millis) {
+        nanoTime += millis * 1000000L;
+    }
+}
@@ -0,0 +1,144 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.Sequencer;
+
+/**
+ * This class plays national anthems. A region's anthem is read in the
+ * background as soon as its game starts, so winning plays it at once
+ * rather than reading the file then. The few most recently played anthems
+ * are kept, and they all share one sequencer that's opened only once.
+ * Everything is done on the service's own thread, so nothing here ever
+ * makes the game wait.
+ *
+ * @author McKillaGorilla
+ */
+public class AnthemService {
+    // THE ANTHEMS READ MOST RECENTLY, BY THE PATH OF THEIR FILES, WITH
+    // THE LEAST RECENTLY PLAYED ONE DROPPED ONCE THERE ARE TOO MANY
+    private LinkedHashMap<String, Sequence> anthems;
+
+    // PLAYED WHEN A REGION HAS NO ANTHEM OF ITS OWN
+    private String fallbackPath;
+
+    // THE ONE SEQUENCER ALL ANTHEMS ARE PLAYED ON, AND WHETHER IT COULD
+    // NOT BE OPENED, IN WHICH CASE WE DON'T KEEP TRYING
+    private Sequencer sequencer;
+    private boolean sequencerUnavailable;
+
+    // ALL THE WORK IS DONE HERE, IN THE ORDER IT WAS ASKED FOR
+    private ExecutorService player;
+
+    /**
+     * Constructs the service and starts getting the sequencer and the
+     * fallback anthem ready in the background.
+     *
+     * @param cacheSize How many anthems to keep read.
+     * @param initFallbackPath The anthem played for regions without one.
+     */
+    public AnthemService(int cacheSize, String initFallbackPath) {
+        anthems = new LinkedHashMap<String, Sequence>(cacheSize + 1, 1, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Sequence> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        fallbackPath = initFallbackPath;
+        player = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Anthem Player");
+            thread.setDaemon(true);
+            return thread;
+        });
+        player.execute(() -> {
+            openSequencer();
+            getAnthem(fallbackPath);
+        });
+    }
+
+    /**
+     * Starts reading an anthem in the background so it's ready to play.
+     *
+     * @param anthemPath The path of the anthem's MIDI file.
+     */
+    public void preload(String anthemPath) {
+        player.execute(() -> getAnthem(anthemPath));
+    }
+
+    /**
+     * Plays an anthem from the start, or the fallback anthem if it can't
+     * be read. This never waits, if the anthem is still being read it
+     * starts as soon as it's ready.
+     *
+     * @param anthemPath The path of the anthem's MIDI file, or null to
+     * play the fallback anthem.
+     */
+    public void play(String anthemPath) {
+        player.execute(() -> {
+            Sequence anthem = (anthemPath != null) ? getAnthem(anthemPath) : null;
+            if (anthem == null) {
+                anthem = getAnthem(fallbackPath);
+            }
+            if ((anthem == null) || !openSequencer()) {
+                return;
+            }
+            try {
+                sequencer.stop();
+                sequencer.setSequence(anthem);
+                sequencer.setTickPosition(0);
+                sequencer.start();
+            } catch (Exception ex) {
+                Logger.getLogger(AnthemService.class.getName()).log(Level.WARNING, null, ex);
+            }
+        });
+    }
+
+    /**
+     * Stops whichever anthem is playing.
+     */
+    public void stop() {
+        player.execute(() -> {
+            if ((sequencer != null) && sequencer.isOpen()) {
+                sequencer.stop();
+            }
+        });
+    }
+
+    // HELPER METHOD FOR GETTING AN ANTHEM, READING IT IF IT ISN'T KEPT,
+    // RETURNING null IF IT CAN'T BE READ
+    private Sequence getAnthem(String anthemPath) {
+        Sequence anthem = anthems.get(anthemPath);
+        if (anthem == null) {
+            try {
+                anthem = MidiSystem.getSequence(new File(anthemPath));
+                anthems.put(anthemPath, anthem);
+            } catch (Exception ex) {
+                Logger.getLogger(AnthemService.class.getName()).log(Level.WARNING, anthemPath, ex);
+            }
+        }
+        return anthem;
+    }
+
+    // HELPER METHOD FOR OPENING THE SEQUENCER THE FIRST TIME IT'S NEEDED,
+    // RETURNING FALSE IF THERE'S NONE TO OPEN
+    private boolean openSequencer() {
+        if ((sequencer == null) && !sequencerUnavailable) {
+            try {
+                sequencer = MidiSystem.getSequencer();
+                sequencer.open();
+            } catch (Exception ex) {
+                sequencer = null;
+                sequencerUnavailable = true;
+                Logger.getLogger(AnthemService.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        return sequencer != null;
+    }
+}
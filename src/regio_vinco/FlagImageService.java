@@ -0,0 +1,124 @@
+package regio_vinco;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.scene.image.Image;
+
+/**
+ * This class decodes flag images on a pool of background threads and
+ * shares them, so each flag is decoded once no matter how many times it's
+ * shown, and many flags can be decoded at the same time. Decoded flags are
+ * only softly held, so the garbage collector may drop them when memory
+ * runs low, in which case they're simply decoded again when next needed,
+ * and their entries are dropped.
+ *
+ * @author McKillaGorilla
+ */
+public class FlagImageService {
+    // EVERY FLAG REQUESTED, BY THE PATH OF ITS IMAGE FILE, AND THE ONES
+    // THE GARBAGE COLLECTOR HAS SINCE DROPPED
+    private ConcurrentHashMap<String, FlagReference> flagImages;
+    private ReferenceQueue<CompletableFuture<Image>> clearedFlags;
+
+    // THE THREADS THAT DO THE DECODING
+    private ExecutorService decoders;
+
+    /**
+     * Constructs a service with one decoding thread per available core.
+     */
+    public FlagImageService() {
+        flagImages = new ConcurrentHashMap();
+        clearedFlags = new ReferenceQueue();
+        decoders = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "Flag Decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the path of a sub-region's flag image.
+     *
+     * @param regionDirectory The directory of the region the sub-region is in.
+     * @param subRegion The sub-region's name.
+     */
+    public static String getFlagPath(String regionDirectory, String subRegion) {
+        return regionDirectory + subRegion + "/" + subRegion + " Flag.png";
+    }
+
+    /**
+     * Gets a flag image, starting to decode it in the background if it
+     * hasn't been already. This never waits for a decode.
+     *
+     * @param flagPath The path of the flag's image file.
+     * @return The flag image, which may still be being decoded.
+     */
+    public CompletableFuture<Image> request(String flagPath) {
+        dropClearedFlags();
+
+        // THE FLAG IS STRONGLY HELD HERE SO IT CAN'T BE CLEARED BEFORE
+        // IT'S RETURNED
+        CompletableFuture<Image>[] flagImage = new CompletableFuture[1];
+        flagImages.compute(flagPath, (path, cached) -> {
+            flagImage[0] = (cached != null) ? cached.get() : null;
+            if (flagImage[0] != null) {
+                return cached;
+            }
+            flagImage[0] = CompletableFuture.supplyAsync(() -> new Image("file:" + path), decoders);
+            return new FlagReference(path, flagImage[0], clearedFlags);
+        });
+        return flagImage[0];
+    }
+
+    /**
+     * Gets a flag image if it's already been decoded, starting to decode it
+     * in the background if it hasn't been. This never waits for a decode.
+     *
+     * @param flagPath The path of the flag's image file.
+     * @return The decoded flag image, or null if it isn't decoded yet.
+     */
+    public Image getIfDecoded(String flagPath) {
+        CompletableFuture<Image> flagImage = request(flagPath);
+        return (flagImage.isDone() && !flagImage.isCompletedExceptionally()) ? flagImage.join() : null;
+    }
+
+    /**
+     * Gets a flag image, waiting for it to be decoded if need be. This must
+     * not be called on the JavaFX thread.
+     *
+     * @param flagPath The path of the flag's image file.
+     * @return The decoded flag image.
+     */
+    public Image get(String flagPath) {
+        return request(flagPath).join();
+    }
+
+    // HELPER METHOD FOR REMOVING THE ENTRIES OF FLAGS THE GARBAGE
+    // COLLECTOR HAS DROPPED, UNLESS THEY'VE ALREADY BEEN REPLACED
+    private void dropClearedFlags() {
+        Reference<? extends CompletableFuture<Image>> cleared;
+        while ((cleared = clearedFlags.poll()) != null) {
+            FlagReference flag = (FlagReference) cleared;
+            flagImages.remove(flag.path, flag);
+        }
+    }
+
+    /**
+     * This class softly holds a flag and remembers its path, so its entry
+     * can be found and removed once the flag has been dropped.
+     */
+    private static class FlagReference extends SoftReference<CompletableFuture<Image>> {
+        private String path;
+
+        FlagReference(String initPath, CompletableFuture<Image> flagImage,
+                ReferenceQueue<CompletableFuture<Image>> queue) {
+            super(flagImage, queue);
+            path = initPath;
+        }
+    }
+}
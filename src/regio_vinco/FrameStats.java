@@ -0,0 +1,136 @@
+package regio_vinco;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class times every frame of the game: how long it is since the last
+ * one, how long updateAll and updateGUI take, and how long input takes to
+ * handle. It also counts how long sound effects take to start, as timed
+ * by SoundEffectService. Frames that come so late that whole frames were
+ * missed count as dropped. Everything is kept in lock-free histograms,
+ * which can be written out as CSV when the game exits.
+ *
+ * @author McKillaGorilla
+ */
+public class FrameStats {
+    // A FRAME THIS MANY FRAMES LATE OR MORE COUNTS AS DROPPING ONE
+    private static final double DROPPED_FRAME_THRESHOLD = 1.5;
+
+    private LatencyHistogram frameTimes;
+    private LatencyHistogram updateTimes;
+    private LatencyHistogram guiTimes;
+    private LatencyHistogram inputTimes;
+    private LatencyHistogram soundLatencies;
+    private AtomicLong droppedFrames;
+
+    // HOW LONG A FRAME SHOULD TAKE, AND WHEN THE CURRENT ONE STARTED
+    private long frameDurationNanos;
+    private long lastFrameStart;
+    private long guiNanos;
+
+    /**
+     * Constructs the statistics for a game running at the given rate.
+     *
+     * @param targetFrameRate The frames per second the game aims for.
+     */
+    public FrameStats(int targetFrameRate) {
+        frameTimes = new LatencyHistogram();
+        updateTimes = new LatencyHistogram();
+        guiTimes = new LatencyHistogram();
+        inputTimes = new LatencyHistogram();
+        soundLatencies = new LatencyHistogram();
+        droppedFrames = new AtomicLong();
+        frameDurationNanos = 1000000000L / targetFrameRate;
+    }
+
+    /**
+     * Called as a frame starts, this times the gap since the last one.
+     *
+     * @return When the frame started, to be passed to endFrame.
+     */
+    public long beginFrame() {
+        long now = System.nanoTime();
+        if (lastFrameStart != 0) {
+            long frameTime = now - lastFrameStart;
+            frameTimes.record(frameTime);
+            if (frameTime >= DROPPED_FRAME_THRESHOLD * frameDurationNanos) {
+                droppedFrames.addAndGet(Math.round((double) frameTime / frameDurationNanos) - 1);
+            }
+        }
+        lastFrameStart = now;
+        guiNanos = 0;
+        return now;
+    }
+
+    /**
+     * Called as a frame ends, this times the frame's update, which is all
+     * of the frame that wasn't spent in updateGUI.
+     *
+     * @param frameStart What beginFrame returned.
+     */
+    public void endFrame(long frameStart) {
+        updateTimes.record(System.nanoTime() - frameStart - guiNanos);
+    }
+
+    /**
+     * Counts how long updateGUI took this frame.
+     */
+    public void recordGui(long nanos) {
+        guiNanos = nanos;
+        guiTimes.record(nanos);
+    }
+
+    /**
+     * Counts how long an input event took to handle.
+     */
+    public void recordInput(long nanos) {
+        inputTimes.record(nanos);
+    }
+
+    // ACCESSOR METHODS
+
+    public LatencyHistogram getFrameTimes() {
+        return frameTimes;
+    }
+
+    public LatencyHistogram getUpdateTimes() {
+        return updateTimes;
+    }
+
+    public LatencyHistogram getGuiTimes() {
+        return guiTimes;
+    }
+
+    public LatencyHistogram getInputTimes() {
+        return inputTimes;
+    }
+
+    public LatencyHistogram getSoundLatencies() {
+        return soundLatencies;
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Writes all the histograms to a CSV file, one line per bucket, with
+     * the number of dropped frames at the end.
+     *
+     * @param path Where to write the file.
+     */
+    public void exportCsv(String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("metric,value_us,count,percentile");
+            frameTimes.writeCsv(out, "frame");
+            updateTimes.writeCsv(out, "update");
+            guiTimes.writeCsv(out, "gui");
+            inputTimes.writeCsv(out, "input");
+            soundLatencies.writeCsv(out, "sound");
+            out.println("dropped frames,," + getDroppedFrames() + ",");
+        }
+    }
+}
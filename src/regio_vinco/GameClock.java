@@ -0,0 +1,21 @@
+package regio_vinco;
+
+/**
+ * This interface provides the time the game timer is measured against. The
+ * game normally runs on the system's monotonic clock, so the timer can't
+ * jump when the wall clock is changed, but anything driving the game
+ * without a player, like the scripted player simulator, may swap in a clock
+ * it advances itself so games can run faster than real time.
+ *
+ * @author McKillaGorilla
+ */
+public interface GameClock {
+    // THE SYSTEM'S MONOTONIC CLOCK, WHICH REAL GAMES ARE TIMED AGAINST
+    public static final GameClock SYSTEM = System::nanoTime;
+
+    /**
+     * Gets the current time, in nanoseconds since some fixed but arbitrary
+     * moment, so only differences between times mean anything.
+     */
+    public long nanoTime();
+}
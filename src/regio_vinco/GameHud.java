@@ -0,0 +1,120 @@
+package regio_vinco;
+
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+
+/**
+ * This class shows the statistics of the game being played along the bottom
+ * of the map: regions found, regions left, incorrect guesses and the time
+ * elapsed. It's updated every frame, but only pushes text to the scene when
+ * a value it shows has actually changed, and builds that text in a buffer
+ * it reuses, so a frame in which nothing changed allocates nothing.
+ *
+ * @author McKillaGorilla
+ */
+public class GameHud {
+    // WHAT EACH STATISTIC IS LABELED
+    private static final String REGIONS_FOUND_LABEL = "Regions Found: ";
+    private static final String REGIONS_LEFT_LABEL = "Regions Left: ";
+    private static final String INCORRECT_GUESSES_LABEL = "Incorrect Guesses: ";
+    private static final String GAME_TIMER_LABEL = "Time Elapsed: ";
+
+    private Text regionsFound;
+    private Text regionsLeft;
+    private Text incorrectGuesses;
+    private Text gameTimer;
+
+    // THE VALUES ON SCREEN NOW, WHICH ARE -1 WHEN THE TEXT IS OUT OF DATE
+    private int shownRegionsFound;
+    private int shownRegionsLeft;
+    private int shownIncorrectGuesses;
+    private long shownSeconds;
+
+    // WHERE THE TEXT IS BUILT
+    private StringBuilder buffer;
+
+    /**
+     * Constructs the statistics texts, empty until the first update.
+     */
+    public GameHud() {
+        regionsFound = makeText(300);
+        regionsLeft = makeText(500);
+        incorrectGuesses = makeText(700);
+        gameTimer = makeText(100);
+        buffer = new StringBuilder(32);
+        invalidate();
+    }
+
+    // HELPER METHOD FOR MAKING ONE OF THE STATISTICS TEXTS
+    private static Text makeText(int x) {
+        Text text = new Text();
+        text.setX(x);
+        text.setY(675);
+        text.setFill(Color.ORANGE);
+        text.setStyle("-fx-font: 15px Calibri");
+        return text;
+    }
+
+    /**
+     * Puts the statistics on a layer.
+     */
+    public void addTo(Pane layer) {
+        layer.getChildren().addAll(regionsFound, regionsLeft, incorrectGuesses, gameTimer);
+    }
+
+    /**
+     * Forces every text to be rebuilt at the next update, as when a new
+     * game starts.
+     */
+    public void invalidate() {
+        shownRegionsFound = -1;
+        shownRegionsLeft = -1;
+        shownIncorrectGuesses = -1;
+        shownSeconds = -1;
+    }
+
+    /**
+     * Shows the latest statistics, changing only the texts whose values
+     * have changed.
+     *
+     * @param found Regions found so far.
+     * @param left Regions still to find.
+     * @param incorrect Incorrect guesses so far.
+     * @param seconds Seconds since the game started.
+     */
+    public void update(int found, int left, int incorrect, long seconds) {
+        if (found != shownRegionsFound) {
+            shownRegionsFound = found;
+            buffer.setLength(0);
+            regionsFound.setText(buffer.append(REGIONS_FOUND_LABEL).append(found).toString());
+        }
+        if (left != shownRegionsLeft) {
+            shownRegionsLeft = left;
+            buffer.setLength(0);
+            regionsLeft.setText(buffer.append(REGIONS_LEFT_LABEL).append(left).toString());
+        }
+        if (incorrect != shownIncorrectGuesses) {
+            shownIncorrectGuesses = incorrect;
+            buffer.setLength(0);
+            incorrectGuesses.setText(buffer.append(INCORRECT_GUESSES_LABEL).append(incorrect).toString());
+        }
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            buffer.setLength(0);
+            buffer.append(GAME_TIMER_LABEL);
+            appendTwoDigits(seconds / 60);
+            buffer.append(':');
+            appendTwoDigits(seconds % 60);
+            gameTimer.setText(buffer.toString());
+        }
+    }
+
+    // HELPER METHOD FOR APPENDING A NUMBER WITH AT LEAST TWO DIGITS
+    private void appendTwoDigits(long value) {
+        if (value < 10) {
+            buffer.append('0');
+        }
+        buffer.append(value);
+    }
+}
@@ -0,0 +1,131 @@
+package regio_vinco;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class counts how long something takes, in buckets of microseconds
+ * that get wider as the times get longer, so every time is known to within
+ * about 3% no matter how long it is. Recording never blocks and never
+ * allocates, so any thread may record while another reads percentiles.
+ *
+ * @author McKillaGorilla
+ */
+public class LatencyHistogram {
+    // EACH POWER OF TWO OF MICROSECONDS IS SPLIT INTO THIS MANY BUCKETS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // TIMES OF 2^37 MICROSECONDS OR MORE, ABOUT 38 HOURS, ALL GO IN THE
+    // LAST BUCKET
+    private static final int MAX_SHIFT = 31;
+    private static final int NUM_BUCKETS = (MAX_SHIFT + 2) << SUB_BUCKET_BITS;
+
+    private AtomicLongArray counts;
+    private AtomicLong maxNanos;
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(NUM_BUCKETS);
+        maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Counts one time.
+     *
+     * @param nanos The time, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(getBucket(nanos / 1000));
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Gets how many times have been counted.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            count += counts.get(bucket);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the longest time counted, in nanoseconds.
+     */
+    public long getMax() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the time that the given percent of all times are no longer than.
+     *
+     * @param percent The percentile, from 0 to 100.
+     * @return The time, in nanoseconds, or 0 if nothing has been counted.
+     */
+    public long getValueAtPercentile(double percent) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil((percent / 100) * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) {
+                return Math.min(getBucketHigh(bucket) * 1000, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Writes every bucket that has any times in it as a line of CSV giving
+     * the name of what was timed, the longest time in the bucket in
+     * microseconds, how many times fell in it, and the percent of all times
+     * that are no longer.
+     *
+     * @param out Where to write the lines.
+     * @param metric The name of what was timed.
+     */
+    public void writeCsv(PrintWriter out, String metric) {
+        long count = getCount();
+        long seen = 0;
+        for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+            long bucketCount = counts.get(bucket);
+            if (bucketCount > 0) {
+                seen += bucketCount;
+                out.printf("%s,%d,%d,%.3f%n", metric, getBucketHigh(bucket), bucketCount, (100.0 * seen) / count);
+            }
+        }
+    }
+
+    // HELPER METHOD FOR FINDING THE BUCKET A TIME GOES IN. TIMES UNDER
+    // SUB_BUCKETS MICROSECONDS EACH GET THEIR OWN BUCKET, AND LONGER ONES
+    // ARE SHIFTED DOWN UNTIL THEY FIT IN SUB_BUCKET_BITS + 1 BITS
+    private static int getBucket(long micros) {
+        int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS);
+        if (shift > MAX_SHIFT) {
+            return NUM_BUCKETS - 1;
+        }
+        return (shift << SUB_BUCKET_BITS) + (int) (micros >>> shift);
+    }
+
+    // HELPER METHOD FOR FINDING THE LONGEST TIME, IN MICROSECONDS, THAT
+    // GOES IN A BUCKET
+    private static long getBucketHigh(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >> SUB_BUCKET_BITS) - 1;
+        long mantissa = bucket - (shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,236 @@
+package regio_vinco;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * This class reads and writes map packs, the compiled binary form of a
+ * region's map. A pack holds everything in a RegionMap, already decoded,
+ * parsed and scanned, so loading a region becomes a memory mapped read
+ * instead of a PNG decode, an XML parse and a pixel scan.
+ *
+ * A pack also records the size and modification time of the map image and
+ * Data.xml file it was compiled from. A pack that is out of date, or from
+ * another version of this format, is not loaded.
+ *
+ * @author McKillaGorilla
+ */
+public class MapPack {
+    // EACH REGION'S PACK SITS NEXT TO ITS MAP IMAGE, NAMED LIKE IT
+    public static final String MAP_PACK_SUFFIX = " Map.pack";
+
+    // EVERY PACK STARTS WITH THESE, "RVMP" AND THE FORMAT VERSION
+    public static final int MAGIC = 0x52564D50;
+    public static final int VERSION = 1;
+
+    // MAGIC, VERSION, FOUR SOURCE FILE LONGS, WIDTH, HEIGHT, SUB-REGION COUNT
+    private static final int HEADER_BYTES = 4 + 4 + (4 * 8) + 4 + 4 + 4;
+
+    /**
+     * Writes a region map out as a pack. The pack is written to a temporary
+     * file first and then moved into place, so a pack is never seen half
+     * written.
+     *
+     * @param regionMap The region map to write.
+     * @param mapFile The map image the region map was decoded from.
+     * @param dataFile The Data.xml file its sub-regions were read from.
+     * @param packFile The pack file to write.
+     */
+    public static void write(RegionMap regionMap, File mapFile, File dataFile, File packFile) throws IOException {
+        ArrayList<SubRegion> subRegions = regionMap.getSubRegions();
+        SubRegionSpans spans = regionMap.getSpans();
+        int numLabels = subRegions.size();
+        int numPixels = regionMap.getWidth() * regionMap.getHeight();
+
+        // FIGURE OUT HOW BIG THE PACK WILL BE
+        int tableBytes = 0;
+        for (SubRegion subRegion : subRegions) {
+            tableBytes += (3 * 4) + stringBytes(subRegion.getName()) + stringBytes(subRegion.getCapital())
+                    + stringBytes(subRegion.getLeader());
+        }
+        int spanBytes = 4 + (4 * (numLabels + 2)) + (3 * 4 * spans.getNumSpans());
+        int size = HEADER_BYTES + tableBytes + spanBytes + (4 * numPixels) + (2 * numPixels);
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(mapFile.lastModified());
+        buffer.putLong(mapFile.length());
+        buffer.putLong(dataFile.lastModified());
+        buffer.putLong(dataFile.length());
+        buffer.putInt(regionMap.getWidth());
+        buffer.putInt(regionMap.getHeight());
+
+        // THE SUB-REGION TABLE
+        buffer.putInt(numLabels);
+        for (SubRegion subRegion : subRegions) {
+            buffer.putInt(subRegion.getRed());
+            buffer.putInt(subRegion.getGreen());
+            buffer.putInt(subRegion.getBlue());
+            putString(buffer, subRegion.getName());
+            putString(buffer, subRegion.getCapital());
+            putString(buffer, subRegion.getLeader());
+        }
+
+        // THE SPANS, GROUPED BY LABEL
+        buffer.putInt(spans.getNumSpans());
+        for (int label = 0; label <= numLabels; label++) {
+            buffer.putInt(spans.getFirstSpan(label));
+        }
+        buffer.putInt(spans.getEndSpan(numLabels));
+        for (int span = 0; span < spans.getNumSpans(); span++) {
+            buffer.putInt(spans.getSpanRow(span));
+        }
+        for (int span = 0; span < spans.getNumSpans(); span++) {
+            buffer.putInt(spans.getSpanStart(span));
+        }
+        for (int span = 0; span < spans.getNumSpans(); span++) {
+            buffer.putInt(spans.getSpanLength(span));
+        }
+
+        // AND THE PIXELS AND THEIR LABELS
+        buffer.asIntBuffer().put(regionMap.getPixels());
+        buffer.position(buffer.position() + (4 * numPixels));
+        buffer.asShortBuffer().put(regionMap.getLabelMap().getLabels());
+        buffer.position(buffer.position() + (2 * numPixels));
+        buffer.flip();
+
+        File tempFile = new File(packFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a region map from its pack by memory mapping the pack file.
+     *
+     * @param regionName The name of the region.
+     * @param packFile The pack file to read.
+     * @param mapFile The region's map image, to check the pack against.
+     * @param dataFile The region's Data.xml file, to check the pack against.
+     * @return The region map, or null if the pack is from another format
+     * version or is older than the files it was compiled from.
+     * @throws IOException If the pack can't be read, or is cut short or
+     * damaged so that what it says it holds doesn't fit in it.
+     */
+    public static RegionMap load(String regionName, File packFile, File mapFile, File dataFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            checkRemaining(buffer, HEADER_BYTES, packFile);
+            if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)
+                    || (buffer.getLong() != mapFile.lastModified()) || (buffer.getLong() != mapFile.length())
+                    || (buffer.getLong() != dataFile.lastModified()) || (buffer.getLong() != dataFile.length())) {
+                return null;
+            }
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+
+            int numLabels = buffer.getInt();
+            if ((width < 0) || (height < 0) || (numLabels < 0)) {
+                throw new IOException(packFile + " is damaged");
+            }
+
+            // EVERY SUB-REGION TAKES AT LEAST ITS COLOR AND THREE STRING
+            // LENGTHS, SO CHECK THE COUNT BEFORE MAKING ROOM FOR THEM
+            checkRemaining(buffer, 6L * 4 * numLabels, packFile);
+            ArrayList<SubRegion> subRegions = new ArrayList(numLabels);
+            for (int i = 0; i < numLabels; i++) {
+                checkRemaining(buffer, 3 * 4, packFile);
+                int red = buffer.getInt();
+                int green = buffer.getInt();
+                int blue = buffer.getInt();
+                String name = getString(buffer, packFile);
+                String capital = getString(buffer, packFile);
+                String leader = getString(buffer, packFile);
+                subRegions.add(new SubRegion(name, capital, leader, red, green, blue));
+            }
+
+            checkRemaining(buffer, 4, packFile);
+            int numSpans = buffer.getInt();
+            if (numSpans < 0) {
+                throw new IOException(packFile + " is damaged");
+            }
+            checkRemaining(buffer, (4L * (numLabels + 2)) + (3L * 4 * numSpans) + (6L * width * height), packFile);
+            int[] firstSpans = getInts(buffer, numLabels + 2);
+            int[] spanRows = getInts(buffer, numSpans);
+            int[] spanStarts = getInts(buffer, numSpans);
+            int[] spanLengths = getInts(buffer, numSpans);
+
+            // EACH LABEL'S SPANS MUST FOLLOW THE LAST LABEL'S, ENDING WITH
+            // THE LAST SPAN
+            for (int label = 0; label <= numLabels; label++) {
+                if ((firstSpans[label] < 0) || (firstSpans[label] > firstSpans[label + 1])) {
+                    throw new IOException(packFile + " is damaged");
+                }
+            }
+            if (firstSpans[numLabels + 1] != numSpans) {
+                throw new IOException(packFile + " is damaged");
+            }
+            SubRegionSpans spans = new SubRegionSpans(firstSpans, spanRows, spanStarts, spanLengths);
+
+            int[] pixels = getInts(buffer, width * height);
+            SubRegionLabelMap labelMap = new SubRegionLabelMap(width, height);
+            buffer.asShortBuffer().get(labelMap.getLabels());
+            return new RegionMap(regionName, width, height, pixels, subRegions, labelMap, spans);
+        }
+    }
+
+    // HELPER METHOD FOR MAKING SURE A PACK STILL HAS AS MANY BYTES LEFT AS
+    // IT SAYS IT DOES, SO A CUT SHORT ONE IS REPORTED RATHER THAN READ PAST
+    private static void checkRemaining(ByteBuffer buffer, long bytes, File packFile) throws IOException {
+        if (bytes > buffer.remaining()) {
+            throw new IOException(packFile + " is cut short");
+        }
+    }
+
+    // HELPER METHOD FOR BULK READING INTS AND MOVING PAST THEM
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] ints = new int[count];
+        buffer.asIntBuffer().get(ints);
+        buffer.position(buffer.position() + (4 * count));
+        return ints;
+    }
+
+    // HELPER METHODS FOR STRINGS, STORED AS A UTF-8 BYTE COUNT, WHICH
+    // IS -1 FOR A MISSING VALUE, FOLLOWED BY THE BYTES
+    private static int stringBytes(String value) {
+        return 4 + ((value == null) ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer, File packFile) throws IOException {
+        checkRemaining(buffer, 4, packFile);
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        checkRemaining(buffer, length, packFile);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package regio_vinco;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import javax.imageio.ImageIO;
+
+/**
+ * This program compiles every region under the maps directory into a map
+ * pack, so the game can load it without decoding its map image or parsing
+ * its Data.xml file. It should be run whenever map data changes, although
+ * the game will fall back to the original files for any region whose pack
+ * is missing or out of date.
+ *
+ * A region that also has a detail map, its map drawn at two, four or more
+ * times the size, gets a map pyramid too, so it can be zoomed in on.
+ *
+ * A region that can't be compiled, such as one whose Data.xml doesn't
+ * match the schema, is skipped and left to load from its original files.
+ * With --strict, skipping any region makes the program fail instead.
+ *
+ * Usage: java regio_vinco.MapPackCompiler [--strict] [maps directory]
+ *
+ * @author McKillaGorilla
+ */
+public class MapPackCompiler {
+    private RegionDataLoader regionDataLoader;
+    private String schemaFilePath;
+    private int packsWritten;
+    private int regionsSkipped;
+
+    public MapPackCompiler(String initSchemaFilePath) {
+        regionDataLoader = new RegionDataLoader();
+        schemaFilePath = initSchemaFilePath;
+    }
+
+    /**
+     * Compiles the region in this directory, if it has a map and a Data.xml
+     * file, and then every region below it.
+     *
+     * @param directory The region directory to start at.
+     */
+    public void compileAll(File directory) {
+        String regionName = directory.getName();
+        File mapFile = new File(directory, regionName + " Map.png");
+        File dataFile = new File(directory, regionName + " Data.xml");
+        if (mapFile.exists() && dataFile.exists()) {
+            try {
+                compile(regionName, mapFile, dataFile, new File(directory, regionName + MapPack.MAP_PACK_SUFFIX));
+                packsWritten++;
+                File detailFile = new File(directory, regionName + MapPyramid.DETAIL_MAP_SUFFIX);
+                if (detailFile.exists()) {
+                    compilePyramid(regionName, mapFile, detailFile, dataFile,
+                            new File(directory, regionName + MapPyramid.MAP_PYRAMID_SUFFIX));
+                }
+            } catch (Exception e) {
+                System.err.println("Skipped " + directory.getPath() + ": " + e);
+                regionsSkipped++;
+            }
+        }
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    compileAll(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles one region into its map pack.
+     */
+    public void compile(String regionName, File mapFile, File dataFile, File packFile) throws Exception {
+        BufferedImage image = ImageIO.read(mapFile);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        ArrayList<SubRegion> subRegions = regionDataLoader.loadSubRegions(dataFile.getPath(), schemaFilePath);
+        RegionMap regionMap = RegionMap.build(regionName, pixels, width, height, subRegions);
+        MapPack.write(regionMap, mapFile, dataFile, packFile);
+        System.out.println("Compiled " + packFile.getPath());
+    }
+
+    /**
+     * Compiles one region's detail map into its map pyramid.
+     */
+    public void compilePyramid(String regionName, File mapFile, File detailFile, File dataFile, File pyramidFile) throws Exception {
+        BufferedImage mapImage = ImageIO.read(mapFile);
+        BufferedImage detailImage = ImageIO.read(detailFile);
+        int width = detailImage.getWidth();
+        int height = detailImage.getHeight();
+        int[] pixels = detailImage.getRGB(0, 0, width, height, null, 0, width);
+        ArrayList<SubRegion> subRegions = regionDataLoader.loadSubRegions(dataFile.getPath(), schemaFilePath);
+        RegionMap detailMap = RegionMap.build(regionName, pixels, width, height, subRegions);
+        MapPyramid.write(pixels, detailMap.getLabelMap(), mapImage.getWidth(), mapImage.getHeight(),
+                detailFile, dataFile, pyramidFile);
+        System.out.println("Compiled " + pyramidFile.getPath());
+    }
+
+    public static void main(String[] args) {
+        boolean strict = false;
+        String mapsPath = RegioVinco.MAPS_PATH;
+        for (String arg : args) {
+            if (arg.equals("--strict")) {
+                strict = true;
+            } else {
+                mapsPath = arg;
+            }
+        }
+        MapPackCompiler compiler = new MapPackCompiler(new File(mapsPath, RegioVinco.SCHEMA_NAME).getPath());
+        compiler.compileAll(new File(mapsPath));
+        System.out.println(compiler.packsWritten + " map packs written, " + compiler.regionsSkipped + " regions skipped");
+        if (strict && (compiler.regionsSkipped > 0)) {
+            System.exit(1);
+        }
+    }
+}
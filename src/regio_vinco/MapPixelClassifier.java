@@ -0,0 +1,120 @@
+package regio_vinco;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class sorts the pixels of a map image into sub-regions. It works on
+ * whole images read into ARGB int arrays, one row per task, so that the scan
+ * done when a map is loaded runs in parallel on all available cores rather
+ * than one pixel at a time on the JavaFX thread.
+ *
+ * @author McKillaGorilla
+ */
+public class MapPixelClassifier {
+    // A FULLY TRANSPARENT ARGB PIXEL
+    public static final int TRANSPARENT_ARGB = 0x00000000;
+
+    // OPEN ADDRESSING TABLE FROM KEY COLOR TO LABEL. NOTE THAT KEY
+    // COLORS ARE ALWAYS OPAQUE, SO 0 CAN MARK AN EMPTY SLOT
+    private int[] keyColors;
+    private int[] keyLabels;
+    private int mask;
+
+    /**
+     * Constructs a classifier for the given sub-region key colors. The key
+     * color at index i is given label i + 1, since label 0 is reserved for
+     * pixels outside all sub-regions.
+     *
+     * @param subRegionKeyColors The opaque ARGB key color of each sub-region.
+     */
+    public MapPixelClassifier(int[] subRegionKeyColors) {
+        int capacity = 16;
+        while (capacity < subRegionKeyColors.length * 2) {
+            capacity *= 2;
+        }
+        keyColors = new int[capacity];
+        keyLabels = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < subRegionKeyColors.length; i++) {
+            int slot = findSlot(subRegionKeyColors[i]);
+            keyColors[slot] = subRegionKeyColors[i];
+            keyLabels[slot] = i + 1;
+        }
+    }
+
+    // HELPER METHOD FOR PROBING THE KEY COLOR TABLE
+    private int findSlot(int argb) {
+        int slot = ((argb * 0x9E3779B9) >>> 16) & mask;
+        while ((keyColors[slot] != 0) && (keyColors[slot] != argb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Gets the label of the sub-region with the given key color.
+     *
+     * @param argb A pixel color in ARGB form.
+     * @return The matching label, or NO_SUB_REGION if it is not a key color.
+     */
+    public int getLabel(int argb) {
+        if (argb == 0) {
+            return SubRegionLabelMap.NO_SUB_REGION;
+        }
+        return keyLabels[findSlot(argb)];
+    }
+
+    /**
+     * Labels every pixel of a map image with the sub-region whose key color
+     * it has. Rows are classified in parallel.
+     *
+     * @param argb The map pixels, row by row, in ARGB form.
+     * @param width The width of the map.
+     * @param height The height of the map.
+     * @return The label raster for the map.
+     */
+    public SubRegionLabelMap classify(int[] argb, int width, int height) {
+        SubRegionLabelMap labelMap = new SubRegionLabelMap(width, height);
+        short[] labels = labelMap.getLabels();
+        IntStream.range(0, height).parallel().forEach(row -> {
+            int lastColor = 0;
+            int lastLabel = SubRegionLabelMap.NO_SUB_REGION;
+            int end = (row + 1) * width;
+            for (int i = row * width; i < end; i++) {
+                // NEIGHBORING PIXELS ARE MOSTLY THE SAME COLOR
+                if (argb[i] != lastColor) {
+                    lastColor = argb[i];
+                    lastLabel = getLabel(lastColor);
+                }
+                labels[i] = (short) lastLabel;
+            }
+        });
+        return labelMap;
+    }
+
+    /**
+     * Paints a map image for play. Pixels that match the background color
+     * are made transparent and every sub-region pixel is painted the color
+     * given for its label. Rows are painted in parallel.
+     *
+     * @param argb The map pixels, row by row, in ARGB form, painted in place.
+     * @param labelMap The label raster for the map.
+     * @param backgroundArgb The color to make transparent.
+     * @param labelColors The ARGB color to paint each label, indexed by label.
+     */
+    public static void paint(int[] argb, SubRegionLabelMap labelMap, int backgroundArgb, int[] labelColors) {
+        int width = labelMap.getWidth();
+        short[] labels = labelMap.getLabels();
+        IntStream.range(0, labelMap.getHeight()).parallel().forEach(row -> {
+            int end = (row + 1) * width;
+            for (int i = row * width; i < end; i++) {
+                int label = labels[i] & SubRegionLabelMap.MAX_LABEL;
+                if (label != SubRegionLabelMap.NO_SUB_REGION) {
+                    argb[i] = labelColors[label];
+                } else if (argb[i] == backgroundArgb) {
+                    argb[i] = TRANSPARENT_ARGB;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,378 @@
+package regio_vinco;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class reads and writes map pyramids, a region's map at more detail
+ * than the game's map, cut into tiles so that only the part on screen is
+ * ever read. Level 1 is twice as detailed as the game's map in each
+ * direction, level 2 four times, and so on up to the detail it was compiled
+ * from. Every tile holds its map pixels and their sub-region labels, which
+ * are the same labels the game's map uses, each tile compressed on its own.
+ *
+ * Like a map pack, a pyramid records the size and modification time of the
+ * files it was compiled from, and one that's out of date isn't opened.
+ * Note that an open pyramid keeps its file open until it's closed.
+ *
+ * @author McKillaGorilla
+ */
+public class MapPyramid {
+    // EACH REGION'S PYRAMID SITS NEXT TO ITS MAP IMAGE, NAMED LIKE IT, AND
+    // IS COMPILED FROM A MORE DETAILED COPY OF THAT IMAGE
+    public static final String MAP_PYRAMID_SUFFIX = " Map.tiles";
+    public static final String DETAIL_MAP_SUFFIX = " Detail Map.png";
+
+    // EVERY PYRAMID STARTS WITH THESE, "RVMT" AND THE FORMAT VERSION
+    public static final int MAGIC = 0x52564D54;
+    public static final int VERSION = 1;
+
+    // HOW WIDE AND TALL A TILE IS, EXCEPT AT THE RIGHT AND BOTTOM EDGES
+    public static final int TILE_SIZE = 256;
+
+    // MAGIC, VERSION, FOUR SOURCE FILE LONGS, BASE WIDTH AND HEIGHT, TILE
+    // SIZE, LEVEL COUNT, BACKGROUND COLOR
+    private static final int HEADER_BYTES = 4 + 4 + (4 * 8) + 4 + 4 + 4 + 4 + 4;
+
+    // EACH TILE'S OFFSET AND COMPRESSED LENGTH
+    private static final int INDEX_ENTRY_BYTES = 8 + 4;
+
+    private FileChannel channel;
+    private int baseWidth;
+    private int baseHeight;
+    private int numLevels;
+    private int backgroundArgb;
+
+    // FOR EACH LEVEL, INDEXED FROM 1, WHERE EACH TILE IS IN THE FILE, ROW
+    // BY ROW
+    private long[][] tileOffsets;
+    private int[][] tileLengths;
+
+    // HELPER CONSTRUCTOR FOR AN OPENED PYRAMID
+    private MapPyramid(FileChannel initChannel, int initBaseWidth, int initBaseHeight, int initNumLevels,
+            int initBackgroundArgb, long[][] initTileOffsets, int[][] initTileLengths) {
+        channel = initChannel;
+        baseWidth = initBaseWidth;
+        baseHeight = initBaseHeight;
+        numLevels = initNumLevels;
+        backgroundArgb = initBackgroundArgb;
+        tileOffsets = initTileOffsets;
+        tileLengths = initTileLengths;
+    }
+
+    /**
+     * Writes a pyramid for a region from its detailed map. The detailed map
+     * must be the game's map size times a power of two, both ways. Like a
+     * pack, it's written to a temporary file and then moved into place.
+     *
+     * @param detailPixels The detailed map pixels, row by row, in ARGB form.
+     * @param detailLabels The sub-region labels of the detailed map.
+     * @param baseWidth The width of the game's map.
+     * @param baseHeight The height of the game's map.
+     * @param detailFile The detailed map image the pixels were decoded from.
+     * @param dataFile The Data.xml file the labels came from.
+     * @param pyramidFile The pyramid file to write.
+     */
+    public static void write(int[] detailPixels, SubRegionLabelMap detailLabels, int baseWidth, int baseHeight,
+            File detailFile, File dataFile, File pyramidFile) throws IOException {
+        int width = detailLabels.getWidth();
+        int height = detailLabels.getHeight();
+        int numLevels = 0;
+        while ((baseWidth << numLevels) < width) {
+            numLevels++;
+        }
+        if ((numLevels == 0) || ((baseWidth << numLevels) != width) || ((baseHeight << numLevels) != height)) {
+            throw new IOException("A detail map must be " + baseWidth + "x" + baseHeight
+                    + " times a power of two, not " + width + "x" + height);
+        }
+
+        // CUT EVERY LEVEL INTO COMPRESSED TILES, STARTING WITH THE MOST
+        // DETAILED AND HALVING IT FOR EACH LEVEL BELOW
+        ArrayList<byte[]>[] levelTiles = new ArrayList[numLevels + 1];
+        int[] pixels = detailPixels;
+        short[] labels = detailLabels.getLabels();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        for (int level = numLevels; level >= 1; level--) {
+            int levelWidth = baseWidth << level;
+            int levelHeight = baseHeight << level;
+            levelTiles[level] = new ArrayList();
+            for (int top = 0; top < levelHeight; top += TILE_SIZE) {
+                for (int left = 0; left < levelWidth; left += TILE_SIZE) {
+                    levelTiles[level].add(compressTile(pixels, labels, levelWidth, levelHeight, left, top, deflater));
+                }
+            }
+            if (level > 1) {
+                int halfWidth = levelWidth / 2;
+                int halfHeight = levelHeight / 2;
+                int[] halfPixels = new int[halfWidth * halfHeight];
+                short[] halfLabels = new short[halfWidth * halfHeight];
+                for (int y = 0; y < halfHeight; y++) {
+                    for (int x = 0; x < halfWidth; x++) {
+                        halfPixels[(y * halfWidth) + x] = pixels[(2 * y * levelWidth) + (2 * x)];
+                        halfLabels[(y * halfWidth) + x] = labels[(2 * y * levelWidth) + (2 * x)];
+                    }
+                }
+                pixels = halfPixels;
+                labels = halfLabels;
+            }
+        }
+        deflater.end();
+
+        // NOW LAY THE FILE OUT, THE HEADER, THE INDEX AND THEN THE TILES
+        int indexBytes = 0;
+        for (int level = 1; level <= numLevels; level++) {
+            indexBytes += INDEX_ENTRY_BYTES * levelTiles[level].size();
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(detailFile.lastModified());
+        header.putLong(detailFile.length());
+        header.putLong(dataFile.lastModified());
+        header.putLong(dataFile.length());
+        header.putInt(baseWidth);
+        header.putInt(baseHeight);
+        header.putInt(TILE_SIZE);
+        header.putInt(numLevels);
+        header.putInt(detailPixels[0]);
+        long offset = HEADER_BYTES + indexBytes;
+        for (int level = 1; level <= numLevels; level++) {
+            for (byte[] tile : levelTiles[level]) {
+                header.putLong(offset);
+                header.putInt(tile.length);
+                offset += tile.length;
+            }
+        }
+        header.flip();
+
+        File tempFile = new File(pyramidFile.getPath() + ".tmp");
+        try (FileChannel out = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            for (int level = 1; level <= numLevels; level++) {
+                for (byte[] tile : levelTiles[level]) {
+                    ByteBuffer buffer = ByteBuffer.wrap(tile);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        Files.move(tempFile.toPath(), pyramidFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // HELPER METHOD FOR COMPRESSING ONE TILE OF A LEVEL, ITS PIXELS AND
+    // THEN ITS LABELS
+    private static byte[] compressTile(int[] pixels, short[] labels, int levelWidth, int levelHeight,
+            int left, int top, Deflater deflater) {
+        int tileWidth = Math.min(TILE_SIZE, levelWidth - left);
+        int tileHeight = Math.min(TILE_SIZE, levelHeight - top);
+        ByteBuffer raw = ByteBuffer.allocate(6 * tileWidth * tileHeight).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = top; y < top + tileHeight; y++) {
+            raw.asIntBuffer().put(pixels, (y * levelWidth) + left, tileWidth);
+            raw.position(raw.position() + (4 * tileWidth));
+        }
+        for (int y = top; y < top + tileHeight; y++) {
+            raw.asShortBuffer().put(labels, (y * levelWidth) + left, tileWidth);
+            raw.position(raw.position() + (2 * tileWidth));
+        }
+        deflater.reset();
+        deflater.setInput(raw.array());
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Opens a region's pyramid, reading just its header and tile index.
+     *
+     * @param pyramidFile The pyramid file to open.
+     * @param detailFile The region's detailed map image, to check it against.
+     * @param dataFile The region's Data.xml file, to check it against.
+     * @return The opened pyramid, or null if it's from another format
+     * version or is older than the files it was compiled from.
+     * @throws IOException If the pyramid can't be read, or its header or
+     * tile index is damaged.
+     */
+    public static MapPyramid open(File pyramidFile, File detailFile, File dataFile) throws IOException {
+        FileChannel channel = FileChannel.open(pyramidFile.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if ((header.getInt() != MAGIC) || (header.getInt() != VERSION)
+                    || (header.getLong() != detailFile.lastModified()) || (header.getLong() != detailFile.length())
+                    || (header.getLong() != dataFile.lastModified()) || (header.getLong() != dataFile.length())) {
+                channel.close();
+                return null;
+            }
+            int baseWidth = header.getInt();
+            int baseHeight = header.getInt();
+            if (header.getInt() != TILE_SIZE) {
+                channel.close();
+                return null;
+            }
+            int numLevels = header.getInt();
+            int backgroundArgb = header.getInt();
+
+            // A DAMAGED HEADER MUST NOT HAVE US MAKE ROOM FOR MORE TILES
+            // THAN THE FILE COULD HOLD, SO CHECK IT BEFORE READING THE INDEX
+            long fileSize = channel.size();
+            long indexBytes = 0;
+            if ((baseWidth > 0) && (baseHeight > 0) && (numLevels > 0) && (numLevels < 16)) {
+                for (int level = 1; level <= numLevels; level++) {
+                    indexBytes += INDEX_ENTRY_BYTES * (long) getTilesAcross(baseWidth, level) * getTilesDown(baseHeight, level);
+                }
+            }
+            if ((indexBytes <= 0) || (HEADER_BYTES + indexBytes > fileSize)) {
+                throw new IOException(pyramidFile + " is damaged");
+            }
+
+            long[][] tileOffsets = new long[numLevels + 1][];
+            int[][] tileLengths = new int[numLevels + 1][];
+            long position = HEADER_BYTES;
+            for (int level = 1; level <= numLevels; level++) {
+                int numTiles = getTilesAcross(baseWidth, level) * getTilesDown(baseHeight, level);
+                ByteBuffer index = read(channel, position, INDEX_ENTRY_BYTES * numTiles);
+                position += INDEX_ENTRY_BYTES * numTiles;
+                tileOffsets[level] = new long[numTiles];
+                tileLengths[level] = new int[numTiles];
+                for (int tile = 0; tile < numTiles; tile++) {
+                    tileOffsets[level][tile] = index.getLong();
+                    tileLengths[level][tile] = index.getInt();
+                    if ((tileOffsets[level][tile] < HEADER_BYTES) || (tileLengths[level][tile] < 0)
+                            || (tileOffsets[level][tile] + tileLengths[level][tile] > fileSize)) {
+                        throw new IOException(pyramidFile + " is damaged");
+                    }
+                }
+            }
+            return new MapPyramid(channel, baseWidth, baseHeight, numLevels, backgroundArgb, tileOffsets, tileLengths);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads and decompresses one tile. This may be called from any thread.
+     *
+     * @param level The level, from 1 to the number of levels.
+     * @param column The tile's column in the level.
+     * @param row The tile's row in the level.
+     * @return The tile, with its map pixels as stored and not yet painted.
+     */
+    public MapTile readTile(int level, int column, int row) throws IOException {
+        int tile = (row * getTilesAcross(baseWidth, level)) + column;
+        ByteBuffer compressed = read(channel, tileOffsets[level][tile], tileLengths[level][tile]);
+        int tileWidth = Math.min(TILE_SIZE, (baseWidth << level) - (column * TILE_SIZE));
+        int tileHeight = Math.min(TILE_SIZE, (baseHeight << level) - (row * TILE_SIZE));
+        byte[] raw = new byte[6 * tileWidth * tileHeight];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int inflated = 0;
+            while (inflated < raw.length) {
+                int count = inflater.inflate(raw, inflated, raw.length - inflated);
+                if ((count == 0) && (inflater.finished() || inflater.needsInput())) {
+                    throw new IOException("Tile " + level + "/" + column + "/" + row + " is cut short");
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Tile " + level + "/" + column + "/" + row + " is damaged", e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        int[] pixels = new int[tileWidth * tileHeight];
+        buffer.asIntBuffer().get(pixels);
+        buffer.position(4 * pixels.length);
+        SubRegionLabelMap labels = new SubRegionLabelMap(tileWidth, tileHeight);
+        buffer.asShortBuffer().get(labels.getLabels());
+        return new MapTile(level, column, row, pixels, labels);
+    }
+
+    /**
+     * Closes the pyramid's file. No more tiles may be read after this.
+     */
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // THERE'S NOTHING LEFT TO READ, SO IT DOESN'T MATTER
+        }
+    }
+
+    // HELPER METHOD FOR READING PART OF THE FILE, FROM ANY THREAD
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Map pyramid is cut short");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // ACCESSOR METHODS
+
+    public int getBaseWidth() {
+        return baseWidth;
+    }
+
+    public int getBaseHeight() {
+        return baseHeight;
+    }
+
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    /**
+     * Gets the color of the background around the map, which is shown as
+     * transparent.
+     */
+    public int getBackgroundArgb() {
+        return backgroundArgb;
+    }
+
+    /**
+     * Gets how many tiles across a level is.
+     */
+    public int getTilesAcross(int level) {
+        return getTilesAcross(baseWidth, level);
+    }
+
+    /**
+     * Gets how many tiles down a level is.
+     */
+    public int getTilesDown(int level) {
+        return getTilesDown(baseHeight, level);
+    }
+
+    private static int getTilesAcross(int baseWidth, int level) {
+        return ((baseWidth << level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+
+    private static int getTilesDown(int baseHeight, int level) {
+        return ((baseHeight << level) + TILE_SIZE - 1) / TILE_SIZE;
+    }
+}
@@ -0,0 +1,95 @@
+package regio_vinco;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+/**
+ * This class holds one tile of a map pyramid, its sub-region labels and,
+ * once it's been painted for the game being played, its image. The map
+ * pixels it was read with are let go of when it's painted.
+ *
+ * @author McKillaGorilla
+ */
+public class MapTile {
+    private int level;
+    private int column;
+    private int row;
+
+    // THE MAP PIXELS AS STORED, UNTIL THE TILE IS PAINTED
+    private int[] pixels;
+    private SubRegionLabelMap labels;
+    private WritableImage image;
+
+    /**
+     * Constructs a tile as read from its pyramid, not yet painted.
+     */
+    public MapTile(int initLevel, int initColumn, int initRow, int[] initPixels, SubRegionLabelMap initLabels) {
+        level = initLevel;
+        column = initColumn;
+        row = initRow;
+        pixels = initPixels;
+        labels = initLabels;
+    }
+
+    /**
+     * Paints the tile for play the way the game's map is painted, with
+     * the background transparent and every sub-region in its label's
+     * color. This doesn't need the JavaFX thread.
+     *
+     * @param backgroundArgb The color to make transparent.
+     * @param labelColors The ARGB color to paint each label, indexed by label.
+     */
+    public void paint(int backgroundArgb, int[] labelColors) {
+        int width = labels.getWidth();
+        int height = labels.getHeight();
+        MapPixelClassifier.paint(pixels, labels, backgroundArgb, labelColors);
+        image = new WritableImage(width, height);
+        image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        pixels = null;
+    }
+
+    /**
+     * Makes the key a tile is known by in a cache.
+     */
+    public static long getKey(int level, int column, int row) {
+        return ((long) level << 48) | ((long) row << 24) | column;
+    }
+
+    // ACCESSOR METHODS
+
+    public long getKey() {
+        return getKey(level, column, row);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public SubRegionLabelMap getLabels() {
+        return labels;
+    }
+
+    /**
+     * Gets the painted image, which is null until the tile is painted.
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * Estimates how much memory this tile takes up once painted, its
+     * image and its labels.
+     */
+    public long getSizeInBytes() {
+        return 6L * labels.getWidth() * labels.getHeight();
+    }
+}
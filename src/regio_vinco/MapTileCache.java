@@ -0,0 +1,108 @@
+package regio_vinco;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps recently shown map tiles in memory, so that panning
+ * back over a part of the map or zooming back in doesn't read the same
+ * tiles over and over. Like the RegionMapCache, the tiles it holds may
+ * add up to no more than its byte budget, and the least recently used
+ * ones are dropped to make room for new ones. It's only ever used on the
+ * JavaFX thread.
+ *
+ * @author McKillaGorilla
+ */
+public class MapTileCache {
+    // THE TILES, FROM LEAST TO MOST RECENTLY USED
+    private LinkedHashMap<Long, MapTile> tiles;
+
+    // HOW MUCH MEMORY THE TILES MAY USE, AND HOW MUCH THEY DO
+    private long byteBudget;
+    private long bytesUsed;
+
+    // HOW OFTEN WE FOUND WHAT WE WERE LOOKING FOR
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param initByteBudget The most memory, in bytes, the cached tiles may use.
+     */
+    public MapTileCache(long initByteBudget) {
+        byteBudget = initByteBudget;
+        tiles = new LinkedHashMap(16, 0.75f, true);
+    }
+
+    /**
+     * Gets a cached tile, counting it as a hit or a miss.
+     *
+     * @param key The tile's key.
+     * @return The tile, or null if it isn't cached.
+     */
+    public MapTile get(long key) {
+        MapTile tile = tiles.get(key);
+        if (tile == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return tile;
+    }
+
+    /**
+     * Adds a tile to the cache, dropping the least recently used tiles
+     * until it fits.
+     *
+     * @param tile The painted tile.
+     */
+    public void put(MapTile tile) {
+        long size = tile.getSizeInBytes();
+        MapTile replaced = tiles.remove(tile.getKey());
+        if (replaced != null) {
+            bytesUsed -= replaced.getSizeInBytes();
+        }
+        if (size > byteBudget) {
+            return;
+        }
+        Iterator<Map.Entry<Long, MapTile>> leastRecentlyUsed = tiles.entrySet().iterator();
+        while ((bytesUsed + size) > byteBudget) {
+            bytesUsed -= leastRecentlyUsed.next().getValue().getSizeInBytes();
+            leastRecentlyUsed.remove();
+        }
+        tiles.put(tile.getKey(), tile);
+        bytesUsed += size;
+    }
+
+    /**
+     * Empties the cache. The hit and miss counts are kept.
+     */
+    public void clear() {
+        tiles.clear();
+        bytesUsed = 0;
+    }
+
+    // ACCESSOR METHODS
+
+    public int getSize() {
+        return tiles.size();
+    }
+
+    public long getBytesUsed() {
+        return bytesUsed;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,300 @@
+package regio_vinco;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.transform.Scale;
+import javafx.scene.transform.Translate;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class lets the player zoom in on the map and pan around it. The
+ * game's map and the sprites over it are zoomed and panned together, and
+ * when the region has a map pyramid, tiles at more detail are laid between
+ * them once the map is zoomed in far enough. Only the tiles on screen are
+ * read, in the background, and recently shown ones are cached. Clicks and
+ * mouse overs on a zoomed in map can be looked up in those same tiles.
+ *
+ * Everything the viewport does is in map pixels, the pixels of the game's
+ * map, which is what the map's own mouse events report.
+ *
+ * @author McKillaGorilla
+ */
+public class MapViewport {
+    // THE MAP AREA, CLIPPED TO THE MAP'S SIZE, AND EVERYTHING ZOOMED AND
+    // PANNED INSIDE IT
+    private Group area;
+    private Rectangle clip;
+    private Group content;
+    private Group tileLayer;
+    private Scale scale;
+    private Translate translate;
+
+    // THE SIZE OF THE GAME'S MAP, HOW FAR IN WE'RE ZOOMED, AND THE MAP
+    // PIXEL AT THE TOP LEFT OF THE AREA
+    private double mapWidth;
+    private double mapHeight;
+    private double zoom;
+    private double panX;
+    private double panY;
+
+    // THE MAP'S PYRAMID, IF IT HAS ONE, HOW TO PAINT ITS TILES, AND THE
+    // LEVEL ON SCREEN, WHICH IS 0 WHEN THE GAME'S MAP IS ENOUGH
+    private MapPyramid pyramid;
+    private int[] labelColors;
+    private int level;
+
+    // TILES WE'VE READ, TILES ON SCREEN, AND TILES BEING READ
+    private MapTileCache tileCache;
+    private HashMap<Long, ImageView> shownTiles;
+    private HashSet<Long> requestedTiles;
+
+    // ALL TILES ARE READ ONE AT A TIME ON THIS THREAD
+    private ExecutorService tileReader;
+
+    /**
+     * Constructs a viewport around the game's map and the sprites shown
+     * over it, zoomed all the way out.
+     *
+     * @param mapView The game's map.
+     * @param spriteLayer The sprites shown over it.
+     */
+    public MapViewport(ImageView mapView, Group spriteLayer) {
+        tileLayer = new Group();
+        tileLayer.setMouseTransparent(true);
+        scale = new Scale(1, 1);
+        translate = new Translate(0, 0);
+        content = new Group(mapView, tileLayer, spriteLayer);
+        content.getTransforms().addAll(scale, translate);
+        clip = new Rectangle(0, 0, GAME_WIDTH, GAME_HEIGHT);
+        area = new Group(content);
+        area.setClip(clip);
+
+        zoom = 1;
+        tileCache = new MapTileCache(MAP_TILE_CACHE_BUDGET);
+        shownTiles = new HashMap();
+        requestedTiles = new HashSet();
+        tileReader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Map Tile Reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the node to put in the scene where the map goes.
+     */
+    public Group getNode() {
+        return area;
+    }
+
+    public MapTileCache getTileCache() {
+        return tileCache;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Starts showing a new map, zoomed all the way out. The last map's
+     * tiles are forgotten, but its pyramid is left open, since whoever
+     * loaded it may show it again.
+     *
+     * @param initMapWidth The width of the game's map.
+     * @param initMapHeight The height of the game's map.
+     * @param initPyramid The map's pyramid, or null if it has none.
+     * @param initLabelColors The color to paint each label in its tiles.
+     */
+    public void setMap(double initMapWidth, double initMapHeight, MapPyramid initPyramid, int[] initLabelColors) {
+        mapWidth = initMapWidth;
+        mapHeight = initMapHeight;
+        pyramid = initPyramid;
+        labelColors = initLabelColors;
+        clip.setWidth(mapWidth);
+        clip.setHeight(mapHeight);
+        tileCache.clear();
+        requestedTiles.clear();
+        shownTiles.clear();
+        tileLayer.getChildren().clear();
+        reset();
+    }
+
+    /**
+     * Zooms all the way back out.
+     */
+    public void reset() {
+        zoom = 1;
+        panX = 0;
+        panY = 0;
+        update();
+    }
+
+    /**
+     * Zooms in or out around a point on the map, which stays where it is
+     * on screen.
+     *
+     * @param factor How much to zoom, more than 1 to zoom in.
+     * @param x The map x coordinate to zoom around.
+     * @param y The map y coordinate to zoom around.
+     */
+    public void zoom(double factor, double x, double y) {
+        double newZoom = Math.max(1, Math.min(MAX_MAP_ZOOM, zoom * factor));
+        panX = x - ((x - panX) * zoom / newZoom);
+        panY = y - ((y - panY) * zoom / newZoom);
+        zoom = newZoom;
+        update();
+    }
+
+    /**
+     * Pans the map by a distance on screen, as when it's dragged.
+     *
+     * @param dx How far to move the map right, in screen pixels.
+     * @param dy How far to move the map down, in screen pixels.
+     */
+    public void pan(double dx, double dy) {
+        panX -= dx / zoom;
+        panY -= dy / zoom;
+        update();
+    }
+
+    /**
+     * Looks up the sub-region label at a point on the map in the tiles on
+     * screen, which are more detailed than the game's map.
+     *
+     * @param x The map x coordinate, which needn't be whole.
+     * @param y The map y coordinate, which needn't be whole.
+     * @return The label, or -1 if no tile on screen covers the point, in
+     * which case the game's map should be asked instead.
+     */
+    public int getLabelAt(double x, double y) {
+        if ((level == 0) || (x < 0) || (y < 0) || (x >= mapWidth) || (y >= mapHeight)) {
+            return -1;
+        }
+        int levelX = (int) (x * (1 << level));
+        int levelY = (int) (y * (1 << level));
+        int column = levelX / MapPyramid.TILE_SIZE;
+        int row = levelY / MapPyramid.TILE_SIZE;
+        if (!shownTiles.containsKey(MapTile.getKey(level, column, row))) {
+            return -1;
+        }
+        MapTile tile = tileCache.get(MapTile.getKey(level, column, row));
+        if (tile == null) {
+            return -1;
+        }
+        return tile.getLabels().getLabel(levelX - (column * MapPyramid.TILE_SIZE), levelY - (row * MapPyramid.TILE_SIZE));
+    }
+
+    // HELPER METHOD FOR KEEPING THE MAP COVERING THE AREA, MOVING IT, AND
+    // SHOWING THE TILES THAT ARE NOW ON SCREEN
+    private void update() {
+        panX = Math.max(0, Math.min(mapWidth - (mapWidth / zoom), panX));
+        panY = Math.max(0, Math.min(mapHeight - (mapHeight / zoom), panY));
+        scale.setX(zoom);
+        scale.setY(zoom);
+        translate.setX(-panX);
+        translate.setY(-panY);
+
+        // EACH LEVEL DOUBLES THE DETAIL, SO WE USE THE ONE CLOSEST TO HOW
+        // FAR IN WE ARE
+        level = 0;
+        if (pyramid != null) {
+            level = Math.min(pyramid.getNumLevels(), (int) Math.round(Math.log(zoom) / Math.log(2)));
+        }
+        showTiles();
+    }
+
+    // HELPER METHOD FOR PUTTING THE TILES ON SCREEN IN THE TILE LAYER AND
+    // TAKING THE OTHERS OUT, ASKING FOR ANY WE HAVEN'T READ YET
+    private void showTiles() {
+        HashMap<Long, ImageView> nowShown = new HashMap();
+        if (level > 0) {
+            int levelScale = 1 << level;
+            int firstColumn = (int) (panX * levelScale) / MapPyramid.TILE_SIZE;
+            int firstRow = (int) (panY * levelScale) / MapPyramid.TILE_SIZE;
+            int lastColumn = Math.min(pyramid.getTilesAcross(level) - 1,
+                    (int) Math.ceil((panX + (mapWidth / zoom)) * levelScale) / MapPyramid.TILE_SIZE);
+            int lastRow = Math.min(pyramid.getTilesDown(level) - 1,
+                    (int) Math.ceil((panY + (mapHeight / zoom)) * levelScale) / MapPyramid.TILE_SIZE);
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    long key = MapTile.getKey(level, column, row);
+                    ImageView tileView = shownTiles.remove(key);
+                    if (tileView == null) {
+                        MapTile tile = tileCache.get(key);
+                        if (tile != null) {
+                            tileView = makeTileView(tile);
+                            tileLayer.getChildren().add(tileView);
+                        } else {
+                            requestTile(level, column, row);
+                        }
+                    }
+                    if (tileView != null) {
+                        nowShown.put(key, tileView);
+                    }
+                }
+            }
+        }
+
+        // WHAT'S LEFT HAS GONE OFF SCREEN
+        tileLayer.getChildren().removeAll(shownTiles.values());
+        shownTiles = nowShown;
+    }
+
+    // HELPER METHOD FOR MAKING THE NODE FOR A TILE, SIZED IN MAP PIXELS
+    private ImageView makeTileView(MapTile tile) {
+        double levelScale = 1 << tile.getLevel();
+        Image image = tile.getImage();
+        ImageView tileView = new ImageView(image);
+        tileView.setX(tile.getColumn() * MapPyramid.TILE_SIZE / levelScale);
+        tileView.setY(tile.getRow() * MapPyramid.TILE_SIZE / levelScale);
+        tileView.setFitWidth(image.getWidth() / levelScale);
+        tileView.setFitHeight(image.getHeight() / levelScale);
+        tileView.setSmooth(false);
+        return tileView;
+    }
+
+    // HELPER METHOD FOR READING AND PAINTING A TILE IN THE BACKGROUND AND
+    // THEN SHOWING IT, IF IT'S STILL WANTED
+    private void requestTile(int tileLevel, int column, int row) {
+        long key = MapTile.getKey(tileLevel, column, row);
+        if (!requestedTiles.add(key)) {
+            return;
+        }
+        MapPyramid tilePyramid = pyramid;
+        int[] tileColors = labelColors;
+        tileReader.execute(() -> {
+            try {
+                MapTile tile = tilePyramid.readTile(tileLevel, column, row);
+                tile.paint(tilePyramid.getBackgroundArgb(), tileColors);
+                Platform.runLater(() -> {
+                    if (tilePyramid == pyramid) {
+                        requestedTiles.remove(key);
+                        tileCache.put(tile);
+                        if (tileLevel == level) {
+                            showTiles();
+                        }
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                // A CLOSED PYRAMID IS ONE WE'VE MOVED ON FROM, OTHERWISE
+                // THE TILE ISN'T AVAILABLE, BUT MAY BE ASKED FOR AGAIN
+                Platform.runLater(() -> {
+                    if (tilePyramid == pyramid) {
+                        requestedTiles.remove(key);
+                        Logger.getLogger(MapViewport.class.getName()).log(Level.WARNING, null, e);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import javafx.scene.text.Text;
+
+/**
+ * This class stores one level of the regions the player has navigated
+ * into: the path to it, its breadcrumb, and the region as it was loaded,
+ * with the order of its stack, so going back to it needs no loading at
+ * all.
+ *
+ * Note that the region must only ever have been played in navigation mode,
+ * since nothing changes its map or its mappings there.
+ *
+ * @author McKillaGorilla
+ */
+public class NavigationLevel {
+    private final RegionPath path;
+    private final PreparedRegion snapshot;
+    private final List<StackEntry> stackOrder;
+    private final Text breadcrumb;
+
+    /**
+     * Constructs a level for a region that has just been navigated into.
+     *
+     * @param initPath The path to the region.
+     * @param initSnapshot The region as it was loaded.
+     * @param initBreadcrumb What the player clicks to go back to it.
+     */
+    public NavigationLevel(RegionPath initPath, PreparedRegion initSnapshot, Text initBreadcrumb) {
+        path = initPath;
+        snapshot = initSnapshot;
+        stackOrder = Collections.unmodifiableList(new ArrayList(initSnapshot.subRegionStack));
+        breadcrumb = initBreadcrumb;
+    }
+
+    /**
+     * Gets the region back as it was loaded, ready to be swapped in again,
+     * with its latest records.
+     *
+     * @param records The region's records now.
+     * @return The region, with its stack in its original order.
+     */
+    public PreparedRegion restore(RegionStatistics records) {
+        snapshot.subRegionStack = new LinkedList(stackOrder);
+        snapshot.highScore = records.getHighScore();
+        snapshot.bestTime = records.getBestTime();
+        return snapshot;
+    }
+
+    // ACCESSOR METHODS
+
+    public RegionPath getPath() {
+        return path;
+    }
+
+    public PreparedRegion getSnapshot() {
+        return snapshot;
+    }
+
+    public Text getBreadcrumb() {
+        return breadcrumb;
+    }
+}
@@ -0,0 +1,96 @@
+package regio_vinco;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class shows how well the game is running on top of the game: the
+ * frame time percentiles, dropped frames, the slowest updates and input,
+ * the slowest sound effect starts against their target, and how many
+ * nodes are in the scene. It's hidden until toggled on, and only refreshes
+ * a couple of times a second while showing.
+ *
+ * @author McKillaGorilla
+ */
+public class PerformanceOverlay {
+    // HOW OFTEN THE NUMBERS ARE REFRESHED WHILE SHOWING
+    private static final long REFRESH_NANOS = 500000000L;
+
+    private FrameStats frameStats;
+    private Parent sceneRoot;
+    private Text text;
+    private long lastRefresh;
+
+    /**
+     * Constructs a hidden overlay.
+     *
+     * @param initFrameStats The statistics to show.
+     * @param initSceneRoot The root of the scene whose nodes are counted.
+     */
+    public PerformanceOverlay(FrameStats initFrameStats, Parent initSceneRoot) {
+        frameStats = initFrameStats;
+        sceneRoot = initSceneRoot;
+        text = new Text();
+        text.setX(PERFORMANCE_OVERLAY_X);
+        text.setY(PERFORMANCE_OVERLAY_Y);
+        text.setFill(Color.LIME);
+        text.setStyle("-fx-font: 12px monospace");
+        text.setMouseTransparent(true);
+        text.setVisible(false);
+    }
+
+    public Text getText() {
+        return text;
+    }
+
+    /**
+     * Shows the overlay if it's hidden, and hides it if it's showing.
+     */
+    public void toggle() {
+        text.setVisible(!text.isVisible());
+        lastRefresh = 0;
+        update();
+    }
+
+    /**
+     * Called each frame, this refreshes the numbers if the overlay is
+     * showing and they're due.
+     */
+    public void update() {
+        if (!text.isVisible()) {
+            return;
+        }
+        long now = System.nanoTime();
+        if ((lastRefresh != 0) && (now - lastRefresh < REFRESH_NANOS)) {
+            return;
+        }
+        lastRefresh = now;
+        LatencyHistogram frameTimes = frameStats.getFrameTimes();
+        text.setText(String.format("frame  p50 %6.2f ms  p99 %6.2f ms  dropped %d%n"
+                + "update p99 %6.2f ms  gui p99 %6.2f ms  input p99 %6.2f ms%n"
+                + "sound  p99 %6.2f ms  target %d ms%n"
+                + "nodes  %d",
+                frameTimes.getValueAtPercentile(50) / 1e6, frameTimes.getValueAtPercentile(99) / 1e6,
+                frameStats.getDroppedFrames(),
+                frameStats.getUpdateTimes().getValueAtPercentile(99) / 1e6,
+                frameStats.getGuiTimes().getValueAtPercentile(99) / 1e6,
+                frameStats.getInputTimes().getValueAtPercentile(99) / 1e6,
+                frameStats.getSoundLatencies().getValueAtPercentile(99) / 1e6,
+                SOUND_EFFECT_LATENCY_TARGET,
+                countNodes(sceneRoot)));
+    }
+
+    // HELPER METHOD FOR COUNTING A NODE AND EVERYTHING UNDER IT
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent) {
+            for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,105 @@
+package regio_vinco;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * This class holds a region that is being loaded in the background. It
+ * starts out with just what was asked for, which region and which game,
+ * and the RegionLoader fills in everything else, so that the data model
+ * can swap the whole thing in at once on the JavaFX thread.
+ *
+ * Note that nothing in here may be touched by the JavaFX thread until the
+ * load has finished.
+ *
+ * @author McKillaGorilla
+ */
+public class PreparedRegion {
+    // WHAT WAS ASKED FOR
+    final String regionName;
+    final String regionMapName;
+    final String parentDirectory;
+    final int gameType;
+    final boolean repeat;
+
+    // THE REGION'S DIRECTORY, WHICH BECOMES THE CURRENT DIRECTORY
+    final String directory;
+
+    // THE LOADED MAP AND WHAT THIS GAME CALLS EACH SUB-REGION ON IT
+    RegionMap regionMap;
+    HashMap<Color, String> colorToSubRegionMappings;
+    HashMap<String, Color> subRegionToColorMappings;
+    HashMap<String, Integer> subRegionToLabelMappings;
+    String[] subRegionsByLabel;
+
+    // THE MAP PAINTED FOR PLAY, AND WHETHER A GAME HAS DRAWN ON IT SINCE
+    int[] paintedMapPixels;
+    WritableImage mapImage;
+    boolean mapDrawnOn;
+
+    // THE SPRITES FOR RECOLORING ITS SUB-REGIONS, OR null IF THE MAP'S
+    // PIXELS ARE REWRITTEN INSTEAD
+    SubRegionSprites sprites;
+
+    // THE MAP'S PYRAMID OF DETAILED TILES, OR null IF IT HAS NONE, AND THE
+    // COLOR EACH LABEL IS PAINTED FOR PLAY
+    MapPyramid pyramid;
+    int[] labelColors;
+
+    // THE SHUFFLED STACK
+    LinkedList<StackEntry> subRegionStack;
+
+    // THE REGION'S RECORDS
+    int highScore = 1000;
+    int bestTime = Integer.MAX_VALUE;
+
+    // WHICH GAMES CAN BE PLAYED ON THIS REGION
+    boolean hasNames;
+    boolean hasCapitals;
+    boolean hasLeaders;
+    boolean hasFlags;
+
+    // THE SUB-REGIONS THAT HAVE FLAG IMAGES
+    HashSet<String> subRegionsWithFlags = new HashSet();
+
+    /**
+     * Constructs a load request for a region.
+     *
+     * @param initRegionName The region to load.
+     * @param initRegionMapName The file name of the region's map image.
+     * @param initParentDirectory The directory the region's directory is in.
+     * @param initGameType The game that will be played on the region.
+     * @param initRepeat True if the region is being replayed rather than
+     * navigated into, in which case no breadcrumb is added for it.
+     */
+    public PreparedRegion(String initRegionName, String initRegionMapName, String initParentDirectory,
+            int initGameType, boolean initRepeat) {
+        regionName = initRegionName;
+        regionMapName = initRegionMapName;
+        parentDirectory = initParentDirectory;
+        gameType = initGameType;
+        repeat = initRepeat;
+        directory = parentDirectory + regionName + "/";
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public int getGameType() {
+        return gameType;
+    }
+
+    /**
+     * Lets go of anything the region holds open, once it won't be played
+     * again.
+     */
+    void release() {
+        if (pyramid != null) {
+            pyramid.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package regio_vinco;
 
 import javafx.application.Application;
+import javafx.scene.input.KeyCode;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
@@ -153,17 +154,62 @@ public class RegioVinco extends Application {
     public static final int STACK_INIT_Y = 650;
     public static final int STACK_INIT_Y_INC = 50;
 
+    // HOW FAR BELOW THE TOP OF ITS BLOCK A SUB-REGION'S NAME IS DRAWN
+    public static final int STACK_TEXT_Y_OFFSET = 30;
+
+    // WHERE THE BREADCRUMBS OF THE REGIONS NAVIGATED INTO ARE SHOWN
+    public static final int BREADCRUMB_X = 50;
+    public static final int BREADCRUMB_Y = 650;
+    public static final int BREADCRUMB_SPACING = 200;
+
     public static final Color REGION_NAME_COLOR = RegioVincoDataModel.makeColor(240, 240, 240);
 
     public static final int SUB_STACK_VELOCITY = 2;
     public static final int FIRST_REGION_Y_IN_STACK = GAME_HEIGHT - 50;
 
+    // THIS IS WHERE WE'LL SHOW PROGRESS WHILE A MAP LOADS
+    public static final int LOADING_X = 400;
+    public static final int LOADING_Y = 300;
+    public static final int LOADING_SIZE = 100;
+
+    // WHERE EVERY REGION'S HIGH SCORE AND BEST TIME ARE KEPT. TOOLS THAT
+    // PLAY GAMES WITHOUT A PLAYER POINT THIS ELSEWHERE
+    public static final String STATISTICS_PATH = System.getProperty("regio_vinco.statistics", "./data/Statistics.journal");
+
+    // WHETHER SUB-REGIONS ARE RECOLORED BY SHOWING SPRITES OVER THE MAP,
+    // RATHER THAN BY REWRITING THE MAP'S PIXELS
+    public static final boolean SPRITE_RECOLORING = Boolean.parseBoolean(System.getProperty("regio_vinco.sprites", "true"));
+
+    // THE FRAME TIMING OVERLAY, THE KEY THAT TOGGLES IT, AND WHERE ALL
+    // THE FRAME TIMES ARE WRITTEN WHEN THE GAME EXITS
+    public static final int PERFORMANCE_OVERLAY_X = 10;
+    public static final int PERFORMANCE_OVERLAY_Y = 80;
+    public static final KeyCode PERFORMANCE_OVERLAY_KEY = KeyCode.F3;
+    public static final String FRAME_STATS_PATH = "./data/FrameStats.csv";
+
+    // HOW MUCH MEMORY RECENTLY PLAYED MAPS MAY KEEP USING
+    public static final long REGION_MAP_CACHE_BUDGET = 256L * 1024 * 1024;
+
+    // HOW MUCH MEMORY RECENTLY SHOWN MAP TILES MAY KEEP USING, HOW FAR
+    // THE MAP CAN BE ZOOMED IN, AND HOW MUCH EACH NOTCH OF THE MOUSE
+    // WHEEL ZOOMS IT
+    public static final long MAP_TILE_CACHE_BUDGET = 64L * 1024 * 1024;
+    public static final double MAX_MAP_ZOOM = 8;
+    public static final double MAP_ZOOM_STEP = 1.25;
+
+    // HOW MANY NATIONAL ANTHEMS STAY READ AFTER THEY'VE BEEN PLAYED
+    public static final int ANTHEM_CACHE_SIZE = 8;
+
+    // HOW MANY OF EACH SOUND EFFECT MAY PLAY AT ONCE, AND HOW MANY
+    // MILLISECONDS ONE SHOULD TAKE TO START AFTER A CLICK
+    public static final int SOUND_EFFECT_VOICES = 4;
+    public static final int SOUND_EFFECT_LATENCY_TARGET = 10;
+
     public static final String AUDIO_DIR = "./data/audio/";
     public static final String AFGHAN_ANTHEM_FILE_NAME = AUDIO_DIR + "AfghanistanNationalAnthem.mid";
     public static final String SUCCESS_FILE_NAME = AUDIO_DIR + "Success.wav";
     public static final String FAILURE_FILE_NAME = AUDIO_DIR + "Failure.wav";
     public static final String TRACKED_FILE_NAME = AUDIO_DIR + "Tracked.wav";
-    public static final String AFGHAN_ANTHEM = "AFGHAN_ANTHEM";
     public static final String SUCCESS = "SUCCESS";
     public static final String FAILURE = "FAILURE";
     public static final String TRACKED_SONG = "TRACKED_SONG";
@@ -1,6 +1,9 @@
 package regio_vinco;
 
+import java.io.IOException;
 import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.ButtonType;
@@ -10,6 +13,8 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import pacg.KeyPressHook;
+import static regio_vinco.RegioVinco.FRAME_STATS_PATH;
+import static regio_vinco.RegioVinco.PERFORMANCE_OVERLAY_KEY;
 import static regio_vinco.RegioVinco.WIN_DISPLAY_TYPE;
 
 /**
@@ -27,6 +32,12 @@ public class RegioVincoController implements KeyPressHook {
     }
     
     public void processExitGameRequest() {
+        ((RegioVincoDataModel)game.getDataModel()).saveStatistics();
+        try {
+            game.getFrameStats().exportCsv(FRAME_STATS_PATH);
+        } catch (IOException ex) {
+            Logger.getLogger(RegioVincoController.class.getName()).log(Level.SEVERE, null, ex);
+        }
 	game.killApplication();
     }
     
@@ -40,35 +51,23 @@ public class RegioVincoController implements KeyPressHook {
     
     public void processRegionButtonRequest(){
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-        dataModel.setGameType(1);
-        dataModel.setRepeat(true);
-        dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
-        dataModel.reset(game);
+        dataModel.switchGame(game, 1);
         
     }
     
     public void processLeaderButtonRequest(){
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-        dataModel.setGameType(2);
-        dataModel.setRepeat(true);
-        dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
-        dataModel.reset(game);
+        dataModel.switchGame(game, 2);
     }
     
     public void processCapitalButtonRequest(){
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-        dataModel.setGameType(3);
-        dataModel.setRepeat(true);
-        dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
-        dataModel.reset(game);
+        dataModel.switchGame(game, 3);
     }
     
     public void processFlagButtonRequest(){
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-        dataModel.setGameType(4);
-        dataModel.setRepeat(true);
-        dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
-        dataModel.reset(game);
+        dataModel.switchGame(game, 4);
     }
     
     public void processStopButtonRequest(){
@@ -84,20 +83,14 @@ public class RegioVincoController implements KeyPressHook {
         
         if(result.get() == yesButton){
             RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-            dataModel.setGameType(0);
-            dataModel.setRepeat(true);
-            dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
-            dataModel.reset(game);
+            dataModel.switchGame(game, 0);
         }
     }
     
     public void processCloseButtonRequest(){
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
-        dataModel.setGameType(0);
-        dataModel.setRepeat(true);
-        dataModel.setCurrentDirectory(dataModel.getCurrentDirectory().replace(dataModel.getRegionName() + "/", ""));
         ((RegioVincoGame)game).getGUIImages().get(WIN_DISPLAY_TYPE).setVisible(false);
-        dataModel.reset(game);
+        dataModel.switchGame(game, 0);
     }
     
     public void processHelpButtonRequest(){
@@ -110,21 +103,26 @@ public class RegioVincoController implements KeyPressHook {
         game.getHelpLayer().setVisible(false);
     }
     
-    public void processMapClickRequest(int x, int y) {
+    public void processMapClickRequest(double x, double y) {
 	((RegioVincoDataModel)game.getDataModel()).respondToMapSelection(game, x, y);
     }
     
-    public void processMouseOverRequest(int x, int y){
+    public void processMouseOverRequest(double x, double y){
         if(((RegioVincoDataModel)game.getDataModel()).getGameType() == 0)
-            ((RegioVincoDataModel)game.getDataModel()).respondToMouseOver(game, x, y);
+            ((RegioVincoDataModel)game.getDataModel()).requestMouseOver(x, y);
     }
     
     @Override
     public void processKeyPressHook(KeyEvent ke)
     {
+        long inputStart = System.nanoTime();
         RegioVincoDataModel dataModel = ((RegioVincoDataModel)((RegioVincoGame)game).getDataModel());
         KeyCode keyCode = ke.getCode();
-        if (keyCode == KeyCode.C && dataModel.getGameType ()!= 0)
+        if (keyCode == PERFORMANCE_OVERLAY_KEY)
+        {
+            game.getPerformanceOverlay().toggle();
+        }
+        else if (keyCode == KeyCode.C && dataModel.getGameType ()!= 0)
         {
             try
             {   
@@ -136,5 +134,6 @@ public class RegioVincoController implements KeyPressHook {
                 game.endUsingData();
             }
         }
+        game.getFrameStats().recordInput(System.nanoTime() - inputStart);
     }   
 }
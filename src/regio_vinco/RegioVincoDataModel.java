@@ -1,26 +1,28 @@
 package regio_vinco;
 
 import audio_manager.AudioManager;
-import java.io.BufferedReader;
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import javafx.application.Platform;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.event.EventType;
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.PixelWriter;
 import javafx.scene.image.WritableImage;
@@ -31,16 +33,9 @@ import javax.sound.midi.InvalidMidiDataException;
 import javax.sound.midi.MidiUnavailableException;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 import pacg.PointAndClickGame;
 import pacg.PointAndClickGameDataModel;
-import xml_utilities.XMLUtilities;
 import static regio_vinco.RegioVinco.*;
-import xml_utilities.InvalidXMLFileFormatException;
 
 /**
  * This class manages the game data for the Regio Vinco game application. Note
@@ -55,7 +50,6 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     private WritableImage mapImage;
     private PixelReader mapPixelReader;
     private PixelWriter mapPixelWriter;
-    private XMLUtilities xmlUtility;
     
     // AND OTHER GAME DATA
     private String regionName;
@@ -64,16 +58,57 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     private String subRegionsType;
     private HashMap<Color, String> colorToSubRegionMappings;
     private HashMap<String, Color> subRegionToColorMappings;
-    private HashMap<String, ArrayList<int[]>> pixels;
+    
+    // THE LOADED MAP, AND EVERY MAP PIXEL LABELED WITH ITS SUB-REGION
+    private RegionMap regionMap;
+    private SubRegionLabelMap labelMap;
+    private HashMap<String, Integer> subRegionToLabelMappings;
+    private String[] subRegionsByLabel;
+    
+    // THE PIXELS OF EACH SUB-REGION AS SPANS, AND THE MAP AS IT WAS
+    // PAINTED WHEN THE GAME STARTED, FOR RESTORING REGIONS
+    private SubRegionSpans spans;
+    private int[] paintedMapPixels;
+    private SubRegionSprites sprites;
+    private int[] spanColorRun;
+    private int spanColor;
     private LinkedList<String> redSubRegions;
-    private LinkedList<MovableText> subRegionStack;
-    private LinkedList<Text> navigatedRegions;
+    private LinkedList<StackEntry> subRegionStack;
+    private SubRegionStackView stackView;
+
+    // THE REGIONS THE PLAYER HAS NAVIGATED INTO, FROM THE TOP DOWN, AND
+    // THE REGION BEING PLAYED NOW, WHICH MAY NOT BE ONE OF THEM
+    private LinkedList<NavigationLevel> navigation;
+    private PreparedRegion installedRegion;
+    
+    // REGIONS ARE LOADED IN THE BACKGROUND WHILE THIS SPINS
+    private RegionLoader regionLoader;
+
+    // EVERY REGION AND WHICH OF ITS FILES EXIST, FOUND ONCE AT STARTUP
+    private RegionIndex regionIndex;
+    private ProgressIndicator loadingIndicator;
+    
+    // EVERY REGION'S RECORDS, KEPT IN MEMORY FOR MOUSE OVERS
+    private StatisticsStore statisticsStore;
+    private HashSet<String> subRegionsWithFlags;
+    
+    // AND THEIR FLAGS, DECODED IN THE BACKGROUND
+    private FlagImageService flagImageService;
+    private CompletableFuture<Image> hoveredFlag;
+    
+    // WHERE THE MOUSE LAST MOVED TO, LOOKED AT ONCE A FRAME, AND THE
+    // SUB-REGION IT WAS OVER THE LAST TIME IT WAS LOOKED AT
+    private double hoverX;
+    private double hoverY;
+    private boolean hoverPending;
+    private String hoveredRegion;
+    private boolean hoverKnown;
+    
+    // NATIONAL ANTHEMS, READ IN THE BACKGROUND BEFORE THEY'RE WON
+    private AnthemService anthemService;
     
     //GAME STATISTICS AND TEXT BOXES
-    private Text regionsFound;
-    private Text regionsLeft;
-    private Text incorrectGuesses;
-    private Text gameTimer;
+    private GameHud hud;
     private Text fullStats;
     private Text mapTitle;
     private Text currentMapScore;
@@ -94,23 +129,53 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     private Image flagImage;
     private ImageView flagImageView;
     
-    //START TIMER
+    //START TIMER, IN NANOSECONDS, AND THE CLOCK IT'S MEASURED AGAINST
     private long startTimer;
+    private GameClock clock = GameClock.SYSTEM;
 
     /**
      * Default constructor, it initializes all data structures for managing the
      * Sprites, including the map.
      */
     public RegioVincoDataModel() {
+        this(new StatisticsStore(STATISTICS_PATH, MAPS_PATH), new FlagImageService(), RegionIndex.build(MAPS_PATH),
+                new AnthemService(ANTHEM_CACHE_SIZE, AFGHAN_ANTHEM_FILE_NAME));
+    }
+
+    /**
+     * Constructs a data model on services that already exist, so they can
+     * be shared with whatever else uses them.
+     *
+     * @param initStatisticsStore every region's records
+     * @param initFlagImageService decodes the flags
+     * @param initRegionIndex which regions have which files
+     * @param initAnthemService plays the national anthems, or null for a
+     * game that plays none
+     */
+    public RegioVincoDataModel(StatisticsStore initStatisticsStore, FlagImageService initFlagImageService,
+            RegionIndex initRegionIndex, AnthemService initAnthemService) {
 	// INITIALIZE OUR DATA STRUCTURES
 	colorToSubRegionMappings = new HashMap();
 	subRegionToColorMappings = new HashMap();
+        subRegionToLabelMappings = new HashMap();
+        subRegionsByLabel = new String[1];
 	subRegionStack = new LinkedList();
+        stackView = new SubRegionStackView();
 	redSubRegions = new LinkedList();
-        navigatedRegions = new LinkedList();
-        xmlUtility = new XMLUtilities();
+        navigation = new LinkedList();
+        loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setLayoutX(LOADING_X);
+        loadingIndicator.setLayoutY(LOADING_Y);
+        loadingIndicator.setPrefSize(LOADING_SIZE, LOADING_SIZE);
+        statisticsStore = initStatisticsStore;
+        subRegionsWithFlags = new HashSet();
+        flagImageService = initFlagImageService;
+        anthemService = initAnthemService;
+        regionIndex = initRegionIndex;
+        regionLoader = new RegionLoader(loadingIndicator, statisticsStore, flagImageService, regionIndex);
         mapTitle = new Text("");
         currentMapScore = new Text("");
+        hud = new GameHud();
         mouseText = new Text("");
         mouseText.setX(900);
         mouseText.setY(200);
@@ -145,24 +210,17 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     }
 
     public void removeAllButOneFromeStack(RegioVincoGame game) {
-        Pane gameLayer = game.getGameLayer();
-        for (String s : redSubRegions) {
-		Color subRegionColor = subRegionToColorMappings.get(s);
-		changeSubRegionColorOnMap(game, s, subRegionColor);
-	    }
+        restoreSubRegionColorsOnMap(game, redSubRegions);
 	    redSubRegions.clear();
+        ArrayList<String> removedSubRegions = new ArrayList();
         while (subRegionStack.size() > 1) {
-	    MovableText text = subRegionStack.removeFirst();
-            gameLayer.getChildren().remove(text.getRectangle());
-            gameLayer.getChildren().remove(text.getText());
-            if(gameType == 4)
-                gameLayer.getChildren().remove(text.getImageView());
-	    String subRegionName = text.getText().getText();
-            
-	    // TURN THE TERRITORY GREEN
-	    changeSubRegionColorOnMap(game, subRegionName, Color.GREEN);
+	    StackEntry entry = subRegionStack.removeFirst();
+            stackView.removeBottom();
+	    removedSubRegions.add(entry.getSubRegion());
 	}
-	startTextStackMovingDown();
+            
+	// TURN ALL THOSE TERRITORIES GREEN AT ONCE
+	changeSubRegionColorsOnMap(game, removedSubRegions, Color.GREEN);
     }
 
     // ACCESSOR METHODS
@@ -186,6 +244,10 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
         return flagImageView;
     }
     
+    public ProgressIndicator getLoadingIndicator(){
+        return loadingIndicator;
+    }
+    
     public int getGameType(){
         return gameType;
     }
@@ -197,6 +259,18 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     public String getCurrentDirectory(){
         return currentDirectory;
     }
+
+    /**
+     * Gets the directory the region being played is in, which is where
+     * it's loaded from when it's played again.
+     */
+    public String getParentDirectory(){
+        return getParentDirectory(currentDirectory, regionName);
+    }
+
+    public RegionIndex getRegionIndex(){
+        return regionIndex;
+    }
     
     public void setCurrentDirectory(String currentDirectory){
         this.currentDirectory = currentDirectory;
@@ -209,6 +283,21 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     public void setRegionMapName(String regionMapName){
         this.regionMapName = regionMapName;
     }
+    
+    /**
+     * Sets the clock the game timer is measured against, which is the
+     * system clock unless something driving the game replaces it.
+     */
+    public void setClock(GameClock initClock){
+        clock = initClock;
+    }
+    
+    /**
+     * Gets how many whole seconds the game in progress has been going.
+     */
+    public long getSecondsElapsed(){
+        return (clock.nanoTime() - startTimer) / 1000000000L;
+    }
 
 
     public String getSubRegionsType() {
@@ -246,7 +335,7 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	return subRegionStack.size();
     }
     
-    public LinkedList<MovableText> getSubRegionStack() {
+    public LinkedList<StackEntry> getSubRegionStack() {
 	return subRegionStack;
     }
     
@@ -257,6 +346,89 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     public Color getColorMappedToSubRegion(String subRegion) {
 	return subRegionToColorMappings.get(subRegion);
     }
+    
+    /**
+     * Finds the sub-region at the given map location using the label raster
+     * built when the map was loaded, so the answer does not depend on what
+     * color the region is currently painted.
+     *
+     * @param x The x coordinate on the map.
+     * @param y The y coordinate on the map.
+     * @return The sub-region at (x, y), or null if there is none.
+     */
+    public String getSubRegionAt(int x, int y) {
+        if (labelMap == null) {
+            return null;
+        }
+        return subRegionsByLabel[labelMap.getLabel(x, y)];
+    }
+
+    /**
+     * Finds the sub-region at the given map location as the player sees
+     * it. When the map is zoomed in far enough to show detailed tiles, the
+     * tile under the point is asked, otherwise the map's own labels are.
+     *
+     * @param game The game, whose map may be zoomed in.
+     * @param x The x coordinate on the map, which needn't be whole.
+     * @param y The y coordinate on the map, which needn't be whole.
+     * @return The sub-region at (x, y), or null if there is none.
+     */
+    public String getSubRegionAt(RegioVincoGame game, double x, double y) {
+        int label = game.getMapViewport().getLabelAt(x, y);
+        if ((label < 0) || (label >= subRegionsByLabel.length)) {
+            return getSubRegionAt((int) Math.floor(x), (int) Math.floor(y));
+        }
+        return subRegionsByLabel[label];
+    }
+
+    /**
+     * Gets the box around a sub-region of the map being played, in map
+     * pixels, as for zooming in on it.
+     *
+     * @param subRegion the sub-region, as this game calls it
+     * @return its box, or null if it isn't on the map
+     */
+    public Rectangle2D getSubRegionBounds(String subRegion) {
+        Integer label = subRegionToLabelMappings.get(subRegion);
+        if ((label == null) || (spans.getPixelCount(label) == 0)) {
+            return null;
+        }
+        return new Rectangle2D(spans.getLeft(label), spans.getTop(label),
+                spans.getRight(label) - spans.getLeft(label), spans.getBottom(label) - spans.getTop(label));
+    }
+
+    /**
+     * Gets how many pixels of the map a sub-region covers.
+     *
+     * @param subRegion the sub-region, as this game calls it
+     * @return its area, 0 if it isn't on the map
+     */
+    public int getSubRegionArea(String subRegion) {
+        Integer label = subRegionToLabelMappings.get(subRegion);
+        return (label == null) ? 0 : spans.getPixelCount(label);
+    }
+
+    /**
+     * Gets the center of a sub-region's pixels, in map pixels. Note that
+     * for an oddly shaped sub-region this may be outside it.
+     *
+     * @param subRegion the sub-region, as this game calls it
+     * @return its centroid, or null if it isn't on the map
+     */
+    public Point2D getSubRegionCentroid(String subRegion) {
+        Integer label = subRegionToLabelMappings.get(subRegion);
+        if ((label == null) || (spans.getPixelCount(label) == 0)) {
+            return null;
+        }
+        return new Point2D(spans.getCentroidX(label), spans.getCentroidY(label));
+    }
+
+    /**
+     * Gets the box around everything drawn on the map being played.
+     */
+    public Rectangle2D getMapContentBounds() {
+        return (regionMap == null) ? Rectangle2D.EMPTY : regionMap.getContentBounds();
+    }
 
     // MUTATOR METHODS
 
@@ -268,61 +440,73 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	subRegionToColorMappings.put(subRegionName, colorKey);
     }
     
-    public void respondToMouseOver(RegioVincoGame game, int x, int y){
-        flagImageView.setVisible(false);
+    /**
+     * Notes where the mouse has moved to on the map. However many times it
+     * moves in a frame, only where it ends up is looked at, in updateAll.
+     *
+     * @param x the mouse's x position on the map
+     * @param y the mouse's y position on the map
+     */
+    public void requestMouseOver(double x, double y){
+        hoverX = x;
+        hoverY = y;
+        hoverPending = true;
+    }
+    
+    public void respondToMouseOver(RegioVincoGame game, double x, double y){
+        String mouseOverRegion = null;
         if(gameType == 0){
-            Color pixelColor = mapPixelReader.getColor(x, y);
-            String mouseOverRegion = colorToSubRegionMappings.get(pixelColor);
-            File statsFile = new File(currentDirectory + mouseOverRegion + "/" + mouseOverRegion + " Statistics.txt");
-            if(mouseOverRegion == null){
-                mouseText.setText("");
-                return;
-            }
-            if(statsFile.exists()){
-                BufferedReader fileReader = null;
-                try {
-                    fileReader = new BufferedReader(new FileReader(currentDirectory + mouseOverRegion + "/" + mouseOverRegion + " Statistics.txt"));
-                    StringBuilder sb = new StringBuilder();
-                    String line = fileReader.readLine();
-                    int tempHighScore = Integer.parseInt(line);
-                    String line2 = fileReader.readLine();
-                    int tempBestTime = Integer.parseInt(line2);
-                    mouseText.setText("Region: " + mouseOverRegion + "\nHigh Score: " + tempHighScore + "\nBest Time: " + tempBestTime);
-                    fileReader.close();
-                    
-                    
-                    /**
-                     *  BufferedReader fileReader = new BufferedReader(new FileReader(currentDirectory + regionName + " Statistics.txt"));
-                StringBuilder sb = new StringBuilder();
-                String line = fileReader.readLine();
-                highScore = Integer.parseInt(line);
-                String line2 = fileReader.readLine();
-                bestTime = Integer.parseInt(line2);
-               fileReader.close();
-                     */
-                    
-                    
-                } catch (Exception ex) {}
-            }else{
-                mouseText.setText("Region: " + mouseOverRegion + "\nHigh Score: 0\nBest Time: 0");
+            // THERE'S NOTHING TO HOVER OVER OUTSIDE WHAT'S DRAWN
+            Rectangle2D contentBounds = getMapContentBounds();
+            if((x >= contentBounds.getMinX()) && (y >= contentBounds.getMinY())
+                    && (x < contentBounds.getMaxX()) && (y < contentBounds.getMaxY())){
+                mouseOverRegion = getSubRegionAt(game, x, y);
             }
+        }
+
+        // NOTHING CHANGES UNTIL THE MOUSE MOVES INTO ANOTHER SUB-REGION
+        if(hoverKnown && Objects.equals(mouseOverRegion, hoveredRegion)){
+            return;
+        }
+        hoveredRegion = mouseOverRegion;
+        hoverKnown = true;
+        flagImageView.setVisible(false);
+        hoveredFlag = null;
+        if(mouseOverRegion == null){
+            mouseText.setText("");
+            return;
+        }
 
-            File flagFile = new File(currentDirectory + mouseOverRegion + "/" + mouseOverRegion + " Flag.png");
-            if(flagFile.exists()){
-                flagImage = new Image("file:" + currentDirectory + mouseOverRegion + "/" + mouseOverRegion + " Flag.png");
+        // THE RECORDS ARE ALL IN MEMORY
+        RegionStatistics records = statisticsStore.get(currentDirectory + mouseOverRegion + "/");
+        mouseText.setText("Region: " + mouseOverRegion + "\nHigh Score: " + records.getHighScore() + "\nBest Time: " + records.getBestTime());
+
+        // THE FLAGS STARTED DECODING WHEN THIS MAP WAS LOADED, SO IF
+        // THIS ONE ISN'T READY YET, SHOW IT WHEN IT IS
+        if(subRegionsWithFlags.contains(mouseOverRegion)){
+            CompletableFuture<Image> flag = flagImageService.request(FlagImageService.getFlagPath(currentDirectory, mouseOverRegion));
+            hoveredFlag = flag;
+            flagImage = flag.getNow(null);
+            if(flagImage != null){
                 flagImageView.setImage(flagImage);
+            }else{
+                flag.thenAcceptAsync(image -> {
+                    if(hoveredFlag == flag){
+                        flagImage = image;
+                        flagImageView.setImage(image);
+                    }
+                }, Platform::runLater);
             }
-            flagImageView.setVisible(true);
         }
+        flagImageView.setVisible(true);
     }
 
-    public void respondToMapSelection(RegioVincoGame game, int x, int y) {
+    public void respondToMapSelection(RegioVincoGame game, double x, double y) {
         // THIS IS WHERE WE'LL CHECK TO SEE IF THE
 	// PLAYER CLICKED NO THE CORRECT SUBREGION
         Pane gameLayer = game.getGameLayer();
-	Color pixelColor = mapPixelReader.getColor(x, y);
-	String clickedSubRegion = colorToSubRegionMappings.get(pixelColor);
-	if (((clickedSubRegion == null) || (subRegionStack.isEmpty())) && gameType == 0) {
+	String clickedSubRegion = getSubRegionAt(game, x, y);
+	if ((clickedSubRegion == null) || ((gameType != 0) && subRegionStack.isEmpty())) {
 	    return;
 	}
        
@@ -330,33 +514,27 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
             regionName = clickedSubRegion;
             regionMapName = clickedSubRegion + " Map.png";
             reset(game);
+            return;
         }
-	if (clickedSubRegion.equals(subRegionStack.get(0).getText().getText())) {
+	if (clickedSubRegion.equals(subRegionStack.getFirst().getSubRegion())) {
 	    
             
             // YAY, CORRECT ANSWER
             if(((RegioVincoGame)game).getSound())
-                game.getAudio().play(SUCCESS, false);
+                game.getSoundEffectService().play(SUCCESS);
             
             
 	    // TURN THE TERRITORY GREEN
 	    changeSubRegionColorOnMap(game, clickedSubRegion, Color.GREEN);
 
-	    // REMOVE THE BOTTOM ELEMENT FROM THE STACK
-	    MovableText removed = subRegionStack.removeFirst();
-            gameLayer.getChildren().remove(removed.getText());
-            if(gameType == 4)
-                gameLayer.getChildren().remove(removed.getImageView());
-            gameLayer.getChildren().remove(removed.getRectangle());
+	    // REMOVE THE BOTTOM ELEMENT FROM THE STACK, WHICH STARTS THE
+	    // REST OF IT SLIDING DOWN
+	    subRegionStack.removeFirst();
+            stackView.removeBottom();
 
 	    // AND LET'S CHANGE THE RED ONES BACK TO THEIR PROPER COLORS
-	    for (String s : redSubRegions) {
-		Color subRegionColor = subRegionToColorMappings.get(s);
-		changeSubRegionColorOnMap(game, s, subRegionColor);
-	    }
+	    restoreSubRegionColorsOnMap(game, redSubRegions);
 	    redSubRegions.clear();
-
-	    startTextStackMovingDown();
             
             regionsFoundInt++;
             regionsLeftInt--;
@@ -365,13 +543,12 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
                 gameLayer.getChildren().clear();
                 colorToSubRegionMappings.clear();
                 subRegionToColorMappings.clear();
-                for(int i = 0; i < mapImage.getWidth(); i++){
-                    for(int j = 0; j < mapImage.getHeight(); j++){
-                        mapPixelWriter.setColor(i, j, Color.TRANSPARENT);
-                    }
-                }
+                // THE LABELS BELONG TO THE CACHED MAP, SO JUST LET GO OF THEM
+                labelMap = null;
+                clearMap();
+                game.reloadTiles(null, null);
                 
-                Long totalTime = (GregorianCalendar.getInstance().getTimeInMillis()/1000 - startTimer);
+                Long totalTime = getSecondsElapsed();
                 long score = 1000 - (totalTime) - (100 * incorrectGuessesInt); 
                 
                 //CREATE STATISTIC PANE
@@ -380,21 +557,13 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
                 fullStats.setX(525);
                 fullStats.setY(325);
                 
-                try {
-                    PrintWriter out = new PrintWriter(currentDirectory + regionName + " Statistics.txt"); 
-                    out.flush();
-                    if(highScore < score)
-                        out.println(score);
-                    else
-                        out.println(highScore);
-                    if(bestTime > totalTime  || bestTime == 0){
-                        out.println(totalTime);
-                    }
-                    else
-                        out.println(bestTime);
-                    
-                    out.close();
-                } catch (Exception e){  }
+                int newHighScore = highScore;
+                if(highScore < score)
+                    newHighScore = (int)score;
+                int newBestTime = bestTime;
+                if(bestTime > totalTime  || bestTime == 0)
+                    newBestTime = totalTime.intValue();
+                statisticsStore.put(currentDirectory, new RegionStatistics(newHighScore, newBestTime));
                 
                 
                 
@@ -409,18 +578,14 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 		game.getAudio().stop(TRACKED_SONG);
                 
                 
-                File nationalAnthem = new File(currentDirectory + regionName + " National Anthem.mid");
+                RegionNode regionNode = regionIndex.getNode(currentDirectory);
                 
-                if(game.getMusic()){
-                    if(nationalAnthem.exists()){
-
-                        try{
-                           game.getAudio().loadAudio(regionName, currentDirectory + regionName + " National Anthem.mid");
-                        }catch(Exception e){}
-
-                        game.getAudio().play(regionName,false);
+                if(game.getMusic() && (anthemService != null)){
+                    // IT WAS READ WHEN THE GAME STARTED, SO THIS DOESN'T WAIT
+                    if((regionNode != null) && regionNode.hasAnthem()){
+                        anthemService.play(regionNode.getAnthemPath());
                     }else{
-                        game.getAudio().play(AFGHAN_ANTHEM, false);
+                        anthemService.play(null);
                     }
                 }
 
@@ -431,7 +596,7 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	    if (!redSubRegions.contains(clickedSubRegion)) {
 		// BOO WRONG ANSWER
                 if(((RegioVincoGame)game).getSound())
-                    game.getAudio().play(FAILURE, false);
+                    game.getSoundEffectService().play(FAILURE);
 
 		// TURN THE TERRITORY TEMPORARILY RED
 		changeSubRegionColorOnMap(game, clickedSubRegion, Color.RED);
@@ -440,21 +605,109 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	}
     }
 
-    public void startTextStackMovingDown() {
-	// AND START THE REST MOVING DOWN
-	for (MovableText mT : subRegionStack) {
-            //mT.setAccelerationY(1);
-	    mT.setVelocityY(SUB_STACK_VELOCITY);
+    public void changeSubRegionColorOnMap(RegioVincoGame game, String subRegion, Color color) {
+        Integer label = subRegionToLabelMappings.get(subRegion);
+        if (label == null) {
+            return;
+        }
+        if (sprites != null) {
+            sprites.setColor(label, color);
+        } else {
+            setSpanColor(toArgb(color));
+            fillSpans(label);
         }
     }
 
-    public void changeSubRegionColorOnMap(RegioVincoGame game, String subRegion, Color color) {
-        // THIS IS WHERE WE'LL CHECK TO SEE IF THE
-	// PLAYER CLICKED NO THE CORRECT SUBREGION
-	ArrayList<int[]> subRegionPixels = pixels.get(subRegion);
-	for (int[] pixel : subRegionPixels) {
-	    mapPixelWriter.setColor(pixel[0], pixel[1], color);
-	}
+    /**
+     * Paints a group of sub-regions the same color in one pass over their
+     * spans.
+     *
+     * @param game the game in progress
+     * @param subRegions the sub-regions to paint
+     * @param color the color to paint them
+     */
+    public void changeSubRegionColorsOnMap(RegioVincoGame game, Collection<String> subRegions, Color color) {
+        if (sprites == null) {
+            setSpanColor(toArgb(color));
+        }
+        for (String subRegion : subRegions) {
+            Integer label = subRegionToLabelMappings.get(subRegion);
+            if (label == null) {
+                continue;
+            }
+            if (sprites != null) {
+                sprites.setColor(label, color);
+            } else {
+                fillSpans(label);
+            }
+        }
+    }
+
+    /**
+     * Puts a group of sub-regions back the way they were painted when the
+     * game started, hiding their sprites or, without sprites, copying their
+     * spans from the saved map pixels.
+     *
+     * @param game the game in progress
+     * @param subRegions the sub-regions to restore
+     */
+    public void restoreSubRegionColorsOnMap(RegioVincoGame game, Collection<String> subRegions) {
+        int width = regionMap.getWidth();
+        for (String subRegion : subRegions) {
+            Integer label = subRegionToLabelMappings.get(subRegion);
+            if (label == null) {
+                continue;
+            }
+            if (sprites != null) {
+                sprites.restore(label);
+                continue;
+            }
+            installedRegion.mapDrawnOn = true;
+            for (int span = spans.getFirstSpan(label); span < spans.getEndSpan(label); span++) {
+                int row = spans.getSpanRow(span);
+                int start = spans.getSpanStart(span);
+                mapPixelWriter.setPixels(start, row, spans.getSpanLength(span), 1, PixelFormat.getIntArgbInstance(),
+                        paintedMapPixels, (row * width) + start, width);
+            }
+        }
+    }
+
+    // HELPER METHOD FOR GETTING A RUN OF PIXELS IN THE COLOR TO PAINT SPANS
+    private void setSpanColor(int argb) {
+        int length = spans.getMaxSpanLength();
+        if ((spanColorRun == null) || (spanColorRun.length < length)) {
+            spanColorRun = new int[length];
+            spanColor = ~argb;
+        }
+        if (spanColor != argb) {
+            Arrays.fill(spanColorRun, argb);
+            spanColor = argb;
+        }
+    }
+
+    // HELPER METHOD FOR PAINTING ALL SPANS OF A SUB-REGION THE SPAN COLOR
+    private void fillSpans(int label) {
+        installedRegion.mapDrawnOn = true;
+        for (int span = spans.getFirstSpan(label); span < spans.getEndSpan(label); span++) {
+            mapPixelWriter.setPixels(spans.getSpanStart(span), spans.getSpanRow(span), spans.getSpanLength(span), 1,
+                    PixelFormat.getIntArgbInstance(), spanColorRun, 0, 0);
+        }
+    }
+
+    // HELPER METHOD FOR MAKING THE WHOLE MAP TRANSPARENT, ONE ROW AT A TIME.
+    // OUTSIDE ITS CONTENT THE MAP ALREADY IS, SO ONLY THAT BOX IS CLEARED
+    private void clearMap() {
+        if (sprites != null) {
+            sprites.restoreAll();
+        }
+        Rectangle2D contentBounds = getMapContentBounds();
+        int left = (int) contentBounds.getMinX();
+        int width = (int) contentBounds.getWidth();
+        int[] transparentRow = new int[width];
+        installedRegion.mapDrawnOn = true;
+        for (int row = (int) contentBounds.getMinY(); row < (int) contentBounds.getMaxY(); row++) {
+            mapPixelWriter.setPixels(left, row, width, 1, PixelFormat.getIntArgbInstance(), transparentRow, 0, 0);
+        }
     }
 
     public int getNumberOfSubRegions() {
@@ -462,365 +715,198 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
     }
 
     /**
-     * Resets all the game data so that a brand new game may be played.
+     * Resets all the game data so that a brand new game may be played. The
+     * region is loaded in the background, and the current game stays up
+     * until it's ready, at which point finishReset swaps it in. If the load
+     * fails, the current game simply carries on.
      *
      * @param game the Zombiquarium game in progress
      */
     @Override
     public void reset(PointAndClickGame game) {
-        int numRegions = 0;
-        highScore = 1000;
         RegioVincoGame thisGame = (RegioVincoGame)game;
-        thisGame.gameLayer.getChildren().clear();
-        thisGame.getCapitalButton().setDisable(true);
-        thisGame.getLeaderButton().setDisable(true);
-        thisGame.getFlagButton().setDisable(true);
-        thisGame.getStopButton().setDisable(true);
-        
-        
-        if(!mapTitle.getText().equals("")){
-            ((RegioVincoGame) game).getGuiLayer().getChildren().remove(mapTitle);
-            mapTitle.setText(regionName);
-            ((RegioVincoGame) game).getGuiLayer().getChildren().add(mapTitle);
-        }else{
-            mapTitle.setText(regionName);
-            ((RegioVincoGame) game).getGuiLayer().getChildren().add(mapTitle);
-        }
-        ((RegioVincoGame) game).reloadMap(regionName, regionMapName);
-
-        // LET'S CLEAR THE DATA STRUCTURES
-            colorToSubRegionMappings.clear();
-            subRegionToColorMappings.clear();
-            subRegionStack.clear();
-            redSubRegions.clear();
-
-
-        try {
-            if(((RegioVincoGame)game).getGuiLayer().getChildren().contains(fullStats))
-                ((RegioVincoGame)game).getGuiLayer().getChildren().remove(fullStats);
-
-            Document xmlDocument = null;
-
-            Document xmlDoc = xmlUtility.loadXMLDocument(currentDirectory + regionName + "/" + regionName + " Data.xml", MAPS_PATH + SCHEMA_NAME);
-
-            int numOfElements = xmlUtility.getNumNodesOfElement(xmlDoc, "sub_region");
-
-            for(int i = 0; i < numOfElements; i++){
-
-                int[] rgb = new int[3];
-                Node subRegionNode = xmlUtility.getNodeInSequence(xmlDoc, "sub_region", i);
-
-                NamedNodeMap attributes = subRegionNode.getAttributes();
-
-                int numAttributes = attributes.getLength();
-                int red = 0,green = 0,blue = 0;
-                String name = "", capital = "", leader = "";
-                int x = 0;
-
-
-
-                for(int j = 0; j < numAttributes; j++){
-                    Node attNode = attributes.item(j);
-                    String attName = attNode.getNodeName();
-                    NodeList attList = attNode.getChildNodes();
-
-                    String textName = attList.item(0).toString();
-                    String value = textName.substring(8, textName.length()-1);
-
-                        switch(attName){
-                            case "red":
-                                red = (Integer.parseInt(value));
-                                break;
-                            case "green":
-                                green = (Integer.parseInt(value));
-                                break;
-                            case "name":
-                                name = value;
-                                thisGame.getRegionButton().setDisable(false);
-                                break;
-                            case "blue":
-                                blue = (Integer.parseInt(value));
-                                break;
-                            case "capital":
-                                capital = value;
-                                thisGame.getCapitalButton().setDisable(false);
-                                break;
-                            case "leader":
-                                leader = value;
-                                thisGame.getLeaderButton().setDisable(false);
-                                break;
-                        }
-
 
-                    x++;
-
-                    
-                }
-                switch(gameType){
-                    case 0: case 1: case 4:
-                        colorToSubRegionMappings.put(makeColor(red,green,blue), name); 
-                        break;
-                    case 3:
-                        colorToSubRegionMappings.put(makeColor(red,green,blue), capital);
-                        break;
-                    case 2:
-                        colorToSubRegionMappings.put(makeColor(red,green,blue), leader);
-                        break;
-                }
-                    
-
-
-
-            }
-
-
-            currentDirectory += regionName + "/";
-            
-            
-            
-            
-            
-            File statistics = new File(currentDirectory + regionName + " Statistics.txt");
-            if(!statistics.exists()){
-                try {
-                    PrintWriter out = new PrintWriter(currentDirectory + regionName + " Statistics.txt");
-                    out.println(0);
-                    out.println(0);
-                    out.close();
-                } catch (Exception e){  }
-            }
-            
+        // START LOADING, WHICH CANCELS ANY LOAD ALREADY UNDER WAY. THE OLD
+        // GAME ISN'T OVER UNTIL THE NEW ONE IS READY
+        PreparedRegion request = new PreparedRegion(regionName, regionMapName, currentDirectory, gameType, repeat);
+        repeat = false;
+        regionLoader.load(request, prepared -> {
+            game.beginUsingData();
             try {
-                BufferedReader fileReader = new BufferedReader(new FileReader(currentDirectory + regionName + " Statistics.txt"));
-                StringBuilder sb = new StringBuilder();
-                String line = fileReader.readLine();
-                highScore = Integer.parseInt(line);
-                String line2 = fileReader.readLine();
-                bestTime = Integer.parseInt(line2);
-               fileReader.close();
-
-                
-            } catch (Exception e) {}
-
-                ((RegioVincoGame)game).getGuiLayer().getChildren().remove(currentMapScore);
-                currentMapScore = new Text("High Score: " + highScore);
-                currentMapScore.setFill(Color.ORANGE);
-                currentMapScore.setStyle("-fx-font-size: 15px");
-                currentMapScore.setX(50);
-                currentMapScore.setY(50);
-                ((RegioVincoGame)game).getGuiLayer().getChildren().add(currentMapScore);
-
-
-            /**
-             * HAVE THE WORLD MAP LOADED FIRST, THEN WAIT FOR MAP PRESS INPUT
-             * CHECK IF DIRECTORY EXISTS, IF IT DOES LOAD IT. IF IT DOESN'T DON'T DO ANYTHING
-             */
-
-
-            regionsLeftInt = colorToSubRegionMappings.size();
-            totalSubRegions = regionsLeftInt;
-
-            // REST THE MOVABLE TEXT
-            Pane gameLayer = ((RegioVincoGame)game).getGameLayer();
-
-            if(!repeat){
-                gameLayer.getChildren().clear();
-                Text regionText = new Text(regionName);
-                navigatedRegions.add(regionText);
-                regionText.setX(50 + (((int)navigatedRegions.size() - 1) * 100));
-                regionText.setY(650);
-                regionText.setFill(Color.YELLOW);
-                regionText.setOnMouseClicked(e -> {
-                    backTrack(regionText,game);
-                    return;
-
-                });
-                regionText.setStyle("-fx-font: 15px Verdana");
-                navigatedRegions.add(regionText);
-                ((RegioVincoGame)game).getGuiLayer().getChildren().add(regionText);
-            }
-
-
-            regionsFound = new Text();
-            regionsLeft = new Text();
-            incorrectGuesses = new Text();
-            gameTimer = new Text();
-
-            
-
-            // RELOAD THE MAP
-            //((RegioVincoGame) game).reloadMap(regionName, regionMapName);
-
-            for (Color c : colorToSubRegionMappings.keySet()) {
-                String subRegion = colorToSubRegionMappings.get(c);
-                File file = new File(currentDirectory + subRegion + "/" + subRegion + " Flag.png");
-                if(file.exists())
-                    thisGame.getFlagButton().setDisable(false);
-                subRegionToColorMappings.put(subRegion, c);    
-                Text textNode = new Text(subRegion);
-                textNode.setStyle("-fx-font: 25px Calibri");
-                textNode.setFill(Color.NAVY);
-                MovableText subRegionText = new MovableText(new Text(""));
-                if(gameType < 4){
-                    //System.out.println("region");
-                    subRegionText = new MovableText(textNode);
-                    }
-                else if(gameType == 4){
-                    //System.out.println("defewmoewmmkofewmklfwe");
-                    File flagFile = new File(currentDirectory + subRegion + "/" + subRegion + " Flag.png");
-                    if(flagFile.exists()){
-                    flagImage = new Image("file:" + currentDirectory + subRegion + "/" + subRegion + " Flag.png");
-                    ImageView flagImageView2 = new ImageView(flagImage);
-                    subRegionText = new MovableText(flagImageView2, textNode);
-                    flagImageView2.setX(STACK_X + 50);
-                    flagImageView2.setVisible(true); 
-                    }else{
-                        subRegionText = new MovableText(textNode);
-                    }
+                endGame(thisGame);
+                finishReset(thisGame, prepared);
+                if (!prepared.repeat) {
+                    navigateInto(thisGame, prepared);
                 }
-                subRegionText.getText().setFill(Color.YELLOW);
-                textNode.setX(STACK_X);
-                subRegionText.getRectangle().setFill(c);
-                
-                if(gameType!=0 && gameType <4){
-                    gameLayer.getChildren().add(subRegionText.getRectangle());
-                    gameLayer.getChildren().add(textNode);
-                }else if(gameType == 4){
-                    gameLayer.getChildren().add(subRegionText.getRectangle());
-                    gameLayer.getChildren().add(subRegionText.getImageView());
-                }
-                
-                
-                subRegionStack.add(subRegionText);
-               
+            } finally {
+                game.endUsingData();
             }
-            
-            Collections.shuffle(subRegionStack);
-            int y = 0;
-            if(gameType < 4)
-                y = STACK_INIT_Y;
-            if(gameType == 4)
-                y = STACK_INIT_Y;
-            
-            // NOW FIX THEIR Y LOCATIONS
-            for (MovableText mT : subRegionStack) {
-                if(gameType < 4){
-                    mT.getText().setY(y);
-                    y -= STACK_INIT_Y_INC;
-                    mT.getRectangle().setY(y + 20);
-                    mT.getRectangle().setX(mT.getText().getX());
-                }else if(gameType == 4){
-                    y-=mT.getImageView().getImage().getHeight();
-                    //mT.getText().setY(y);
-                    mT.getImageView().setY(y);
-                    mT.getRectangle().setY(y);
-                    mT.getRectangle().setX(mT.getText().getX());
-                    //mT.getImageView().setY(mT.getImageView().translateYProperty().doubleValue());
-                }
-                
+        }, () -> {
+            game.beginUsingData();
+            try {
+                restoreInstalledRegion();
+            } finally {
+                game.endUsingData();
             }
+        });
+    }
 
-            // LET'S RECORD ALL THE PIXELS
-            pixels = new HashMap();
-            for (MovableText mT : subRegionStack) {
-                pixels.put(mT.getText().getText(), new ArrayList());
-            }
-            Color orangeChange = mapPixelReader.getColor(0, 0);
-            for (int i = 0; i < mapImage.getWidth(); i++) {
-                for (int j = 0; j < mapImage.getHeight(); j++) {
-                    Color c = mapPixelReader.getColor(i, j);
-                    //CHECKS FOR OUTSIDE BORDER ORANGE, CHANGES IF TRUE
-                    if (c.equals(orangeChange)){
-                        mapPixelWriter.setColor(i, j, Color.TRANSPARENT);
-                    }
-                    if (colorToSubRegionMappings.containsKey(c)) {
-                        String subRegion = colorToSubRegionMappings.get(c);
-                        File testFile = new File(currentDirectory + subRegion + "/" + subRegion + " Data.xml");
-                        if(!testFile.exists() && gameType == 0)
-                            mapPixelWriter.setColor(i,j, Color.PINK);
-                        else{
-                            mapPixelWriter.setColor(i,j,c);
-                        }
-                        ArrayList<int[]> subRegionPixels = pixels.get(subRegion);
-                        int[] pixel = new int[2];
-                        pixel[0] = i;
-                        pixel[1] = j;
-                        subRegionPixels.add(pixel);
-                    }else if(colorToSubRegionMappings.containsKey(c)){
+    // HELPER METHOD FOR GOING BACK TO THE REGION AND GAME BEING PLAYED
+    // WHEN ANOTHER ONE COULDN'T BE LOADED IN ITS PLACE
+    private void restoreInstalledRegion(){
+        if(installedRegion != null){
+            regionName = installedRegion.regionName;
+            regionMapName = installedRegion.regionMapName;
+            currentDirectory = installedRegion.directory;
+            gameType = installedRegion.gameType;
+        }
+    }
 
-                    }
-                }
-            }
-        
+    /**
+     * Swaps a region loaded in the background into the game and starts
+     * playing it. Called on the JavaFX thread.
+     *
+     * @param game the game in progress
+     * @param prepared the loaded region
+     */
+    private void finishReset(RegioVincoGame game, PreparedRegion prepared) {
+        Pane gameLayer = game.getGameLayer();
+        if(game.getGuiLayer().getChildren().contains(fullStats))
+            game.getGuiLayer().getChildren().remove(fullStats);
+
+        // SWAP IN THE LOADED REGION, UNDER WHICH THE MOUSE MAY BE OVER
+        // ANOTHER SUB-REGION
+        installRegion(prepared);
+        hoverKnown = false;
+        game.reloadMap(prepared.mapImage);
+        game.reloadSprites(sprites);
+        game.reloadTiles(prepared.pyramid, prepared.labelColors);
+
+        game.getRegionButton().setDisable(!prepared.hasNames);
+        game.getCapitalButton().setDisable(!prepared.hasCapitals);
+        game.getLeaderButton().setDisable(!prepared.hasLeaders);
+        game.getFlagButton().setDisable(!prepared.hasFlags);
+
+        game.getGuiLayer().getChildren().remove(mapTitle);
+        mapTitle.setText(regionName);
+        game.getGuiLayer().getChildren().add(mapTitle);
+
+        game.getGuiLayer().getChildren().remove(currentMapScore);
+        currentMapScore = new Text("High Score: " + highScore);
+        currentMapScore.setFill(Color.ORANGE);
+        currentMapScore.setStyle("-fx-font-size: 15px");
+        currentMapScore.setX(50);
+        currentMapScore.setY(50);
+        game.getGuiLayer().getChildren().add(currentMapScore);
+
+        regionsLeftInt = colorToSubRegionMappings.size();
+        totalSubRegions = regionsLeftInt;
+
+        // PUT THE STACK IN THE SCENE
+        stackView.setStack(subRegionStack, gameType);
+        if(gameType != 0){
+            gameLayer.getChildren().add(stackView.getGroup());
+        }
 
-        
-        //CREATING TEXT BOXES FOR STATISTICS
+        //RESET THE STATISTICS AND THEIR TEXT BOXES
         regionsFoundInt = 0;
-        regionsFound.setText("Regions Found: " + regionsFoundInt);
-        regionsFound.setX(300);
-        regionsFound.setY(675);
-        regionsFound.setFill(Color.ORANGE);
-        regionsFound.setStyle("-fx-font: 15px Calibri");
-        
-        regionsLeft.setText("Regions Left: " + regionsLeftInt);
-        regionsLeft.setX(500);
-        regionsLeft.setY(675);
-        regionsLeft.setFill(Color.ORANGE);
-        regionsLeft.setStyle("-fx-font: 15px Calibri");
-
         incorrectGuessesInt = 0;
-        incorrectGuesses.setText("Incorrect Guesses: " + incorrectGuessesInt);
-        incorrectGuesses.setX(700);
-        incorrectGuesses.setY(675);
-        incorrectGuesses.setFill(Color.ORANGE);
-        incorrectGuesses.setStyle("-fx-font: 15px Calibri");
-
-        startTimer = GregorianCalendar.getInstance().getTimeInMillis()/1000;
-        gameTimer.setText("Time Elapsed: " + "00:" + startTimer);
-        gameTimer.setX(100);
-        gameTimer.setY(675);
-        gameTimer.setFill(Color.ORANGE);
-        gameTimer.setStyle("-fx-font: 15px Calibri");
+        startTimer = clock.nanoTime();
+        hud.invalidate();
+        hud.update(regionsFoundInt, regionsLeftInt, incorrectGuessesInt, 0);
 
         if(gameType != 0){
-            gameLayer.getChildren().add(regionsFound);
-            gameLayer.getChildren().add(regionsLeft);
-            gameLayer.getChildren().add(incorrectGuesses);
-            gameLayer.getChildren().add(gameTimer);
+            hud.addTo(gameLayer);
         }
         
-        // RESET THE AUDIO
-        AudioManager audio = ((RegioVincoGame) game).getAudio();
-        audio.stop(AFGHAN_ANTHEM);
-        
-        File nationalAnthem = new File(currentDirectory + regionName + " National Anthem.mid");
-                
-        if(nationalAnthem.exists()){            
-            audio.stop(regionName);
+        // RESET THE AUDIO, GETTING THE ANTHEM READY IN CASE THIS GAME IS WON
+        AudioManager audio = game.getAudio();
+        if(anthemService != null){
+            anthemService.stop();
+            RegionNode regionNode = regionIndex.getNode(currentDirectory);
+            if((gameType != 0) && (regionNode != null) && regionNode.hasAnthem()){
+                anthemService.preload(regionNode.getAnthemPath());
+            }
         }
         
-        if (!audio.isPlaying(TRACKED_SONG) && ((RegioVincoGame)game).getMusic()) {
+        if (!audio.isPlaying(TRACKED_SONG) && game.getMusic()) {
             audio.play(TRACKED_SONG, true);
         }
-        } catch (InvalidXMLFileFormatException ex) {
-        Logger.getLogger(RegioVincoDataModel.class.getName()).log(Level.SEVERE, null, ex);
-        } catch (SAXException ex) {
-        Logger.getLogger(RegioVincoDataModel.class.getName()).log(Level.SEVERE, null, ex);
-        }
+
         // LET'S GO
         beginGame();
-        repeat = false;
         
         if(gameType != 0){
-            thisGame.getStopButton().setDisable(false);
+            game.getStopButton().setDisable(false);
         }
-        
     }
-   
+
+    /**
+     * Writes out any records not yet saved. Called when the game exits.
+     */
+    public void saveStatistics() {
+        statisticsStore.close();
+    }
+
+    /**
+     * Makes a loaded region the one being played, without touching the
+     * scene. Note that the map image still has to be set.
+     *
+     * @param prepared the loaded region
+     */
+    void installRegion(PreparedRegion prepared) {
+        // THE REGION IT REPLACES WON'T BE PLAYED AGAIN UNLESS WE CAN GO
+        // BACK TO IT
+        if((installedRegion != null) && (installedRegion != prepared) && !isNavigationSnapshot(installedRegion)){
+            installedRegion.release();
+        }
+        installedRegion = prepared;
+        regionName = prepared.regionName;
+        regionMapName = prepared.regionMapName;
+        currentDirectory = prepared.directory;
+        gameType = prepared.gameType;
+        regionMap = prepared.regionMap;
+        labelMap = regionMap.getLabelMap();
+        spans = regionMap.getSpans();
+        colorToSubRegionMappings = prepared.colorToSubRegionMappings;
+        subRegionToColorMappings = prepared.subRegionToColorMappings;
+        subRegionToLabelMappings = prepared.subRegionToLabelMappings;
+        subRegionsByLabel = prepared.subRegionsByLabel;
+        subRegionStack = prepared.subRegionStack;
+        subRegionsWithFlags = prepared.subRegionsWithFlags;
+        paintedMapPixels = prepared.paintedMapPixels;
+        sprites = prepared.sprites;
+        highScore = prepared.highScore;
+        bestTime = prepared.bestTime;
+    }
+
+    /**
+     * Tests whether a region is being loaded in the background.
+     */
+    public boolean isLoading() {
+        return regionLoader.isLoading();
+    }
+
+    /**
+     * Gets the cache of loaded region maps, along with its hit and miss
+     * counts.
+     */
+    public RegionMapCache getRegionMapCache() {
+        return regionLoader.getRegionMapCache();
+    }
+
     // HELPER METHOD FOR MAKING A COLOR OBJECT
     public static Color makeColor(int r, int g, int b) {
 	return Color.color((r/255.0), (g/255.0), (b/255.0));
     }
+    
+    // HELPER METHOD FOR TURNING A COLOR INTO AN ARGB PIXEL
+    public static int toArgb(Color c) {
+        return ((int) Math.round(c.getOpacity() * 255) << 24)
+                | ((int) Math.round(c.getRed() * 255) << 16)
+                | ((int) Math.round(c.getGreen() * 255) << 8)
+                | (int) Math.round(c.getBlue() * 255);
+    }
 
     // STATE TESTING METHODS
     // UPDATE METHODS
@@ -835,51 +921,16 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
      */
     @Override
     public void updateAll(PointAndClickGame game, double percentage) {
-	long minutes = ((GregorianCalendar.getInstance().getTimeInMillis()/1000) - startTimer)/60;
-        long seconds = ((GregorianCalendar.getInstance().getTimeInMillis()/1000) - startTimer)%60;
-        String time = String.format("Time Elapsed: %02d:%02d",minutes,seconds);
-        for (MovableText mT : subRegionStack) {
-            if(gameType < 0){
-                mT.getText().setY(mT.getText().getY() + mT.getVelocityY());
-                mT.getRectangle().setY(mT.getRectangle().getY() + mT.getVelocityY());
-                mT.update(percentage);
-            }else if (gameType == 4){
-                mT.getImageView().setY(mT.getImageView().getY() + mT.getVelocityY());
-                mT.getRectangle().setY(mT.getRectangle().getY() + mT.getVelocityY());
-                mT.update(percentage);
-            }
-	}
+        // THE HOVER TEXT FOLLOWS WHEREVER THE MOUSE ENDED UP THIS FRAME
+        if(hoverPending){
+            hoverPending = false;
+            respondToMouseOver((RegioVincoGame)game, hoverX, hoverY);
+        }
 
-	if (!subRegionStack.isEmpty()) {
-	    MovableText bottomOfStack = subRegionStack.get(0);
-            bottomOfStack.getText().setFill(Color.RED);
-            bottomOfStack.getRectangle().setFill(Color.GREEN);
-            if(gameType < 4){
-                double bottomY = bottomOfStack.getText().getY() + bottomOfStack.getText().translateYProperty().doubleValue();
-                if (bottomY >= FIRST_REGION_Y_IN_STACK) {
-                    double diffY = bottomY - FIRST_REGION_Y_IN_STACK;
-                    for (MovableText mT : subRegionStack) {
-                        mT.getText().setY(mT.getText().getY() - diffY);
-                        mT.setVelocityY(0);
-                    }
-                }
-            }else if(gameType == 4){
-                double bottomY = bottomOfStack.getImageView().getY() + bottomOfStack.getImageView().translateYProperty().doubleValue();
-                if (bottomY >= FIRST_REGION_Y_IN_STACK - bottomOfStack.getImageView().getImage().getHeight()) {
-                    double diffY = bottomY - FIRST_REGION_Y_IN_STACK + bottomOfStack.getImageView().getImage().getHeight();
-                    for (MovableText mT : subRegionStack) {
-                        mT.getImageView().setY(mT.getImageView().getY() - diffY);
-                        mT.getRectangle().setY(mT.getRectangle().getY() - diffY);
-                        mT.setVelocityY(0);
-                    }
-                }
-            }
-	}
-        
-        regionsFound.setText("Regions Found: " + regionsFoundInt);
-        regionsLeft.setText("Regions Left: " + regionsLeftInt);
-        incorrectGuesses.setText("Incorrect Guesses: " + incorrectGuessesInt);
-        gameTimer.setText(time);
+        // THE STACK SLIDES DOWN AS ONE, HOWEVER BIG IT IS
+        stackView.update();
+
+        hud.update(regionsFoundInt, regionsLeftInt, incorrectGuessesInt, getSecondsElapsed());
     }
 
     /**
@@ -895,17 +946,154 @@ public class RegioVincoDataModel extends PointAndClickGameDataModel {
 	debugText.clear();
     }
     
-    public void backTrack(Text regionText, PointAndClickGame game){
-        int x = 0;
-        repeat = true;
-        while(!regionText.equals(navigatedRegions.getLast())){
-            currentDirectory = currentDirectory.replace(navigatedRegions.getLast().getText() + "/", "");
-            navigatedRegions.getLast().setVisible(false);
-            navigatedRegions.removeLast();
+    /**
+     * Goes back up to a region the player navigated into earlier, dropping
+     * every level below it. In navigation mode the region is swapped back
+     * in just as it was loaded, without going to the disk, otherwise it's
+     * loaded for the game being played.
+     *
+     * @param level the level to go back to
+     * @param game the game in progress
+     */
+    public void backTrack(NavigationLevel level, RegioVincoGame game){
+        while(navigation.getLast() != level){
+            dropLevel(game, navigation.removeLast());
+        }
+        RegionPath path = level.getPath();
+        if(gameType == 0){
+            regionLoader.cancel();
+            endGame(game);
+            PreparedRegion prepared = level.restore(statisticsStore.get(path.getDirectory()));
+            game.beginUsingData();
+            try {
+                finishReset(game, prepared);
+            } finally {
+                game.endUsingData();
+            }
+        }else{
+            repeat = true;
+            currentDirectory = path.getParentDirectory();
+            regionName = path.getRegionName();
+            regionMapName = path.getRegionMapName();
+            reset(game);
+        }
+    }
+
+    /**
+     * Starts a different game on the region being played. The region is
+     * already loaded, so its map is reused and only what the new game
+     * calls its sub-regions, and its stack, are set up again, right away.
+     * The flag game is the exception while any of its flags are still being
+     * decoded, it's then loaded in the background like any other region.
+     * Going back to navigation picks the region's navigation level back up
+     * if it has one.
+     *
+     * @param game the game in progress
+     * @param newGameType the game to play
+     */
+    public void switchGame(RegioVincoGame game, int newGameType){
+        // WITH NOTHING LOADED YET, OR SOMETHING ELSE ON ITS WAY, LOAD IT
+        if((installedRegion == null) || isLoading()){
+            gameType = newGameType;
+            repeat = true;
+            currentDirectory = getParentDirectory();
+            reset(game);
+            return;
+        }
+        gameType = newGameType;
+        if((newGameType == 0) && !navigation.isEmpty()
+                && navigation.getLast().getPath().getDirectory().equals(installedRegion.directory)){
+            backTrack(navigation.getLast(), game);
+            return;
+        }
+        // THE FLAG GAME IS ONLY SET UP RIGHT AWAY IF ITS FLAGS ARE ALL
+        // DECODED ALREADY, OTHERWISE IT'S LOADED LIKE A NEW REGION
+        PreparedRegion prepared = regionLoader.switchGame(installedRegion, newGameType, !isNavigationSnapshot(installedRegion));
+        if(prepared == null){
+            repeat = true;
+            currentDirectory = getParentDirectory();
+            reset(game);
+            return;
+        }
+        endGame(game);
+        game.beginUsingData();
+        try {
+            finishReset(game, prepared);
+        } finally {
+            game.endUsingData();
+        }
+    }
+
+    /**
+     * Gets the regions the player has navigated into, from the top down.
+     */
+    public List<NavigationLevel> getNavigation(){
+        return Collections.unmodifiableList(navigation);
+    }
+
+    // HELPER METHOD FOR ENDING THE GAME BEING PLAYED BEFORE ANOTHER STARTS
+    private void endGame(RegioVincoGame game){
+        game.getCapitalButton().setDisable(true);
+        game.getLeaderButton().setDisable(true);
+        game.getFlagButton().setDisable(true);
+        game.getStopButton().setDisable(true);
+        game.getGameLayer().getChildren().clear();
+        subRegionStack = new LinkedList();
+        redSubRegions.clear();
+    }
+
+    // HELPER METHOD FOR ADDING A LEVEL FOR A REGION THE PLAYER HAS JUST
+    // NAVIGATED INTO, AFTER DROPPING ANY LEVELS THAT AREN'T ABOVE IT
+    private void navigateInto(RegioVincoGame game, PreparedRegion prepared){
+        while(!navigation.isEmpty() && !navigation.getLast().getPath().getDirectory().equals(prepared.parentDirectory)){
+            dropLevel(game, navigation.removeLast());
+        }
+        RegionPath parentPath = navigation.isEmpty() ? null : navigation.getLast().getPath();
+        RegionPath path = new RegionPath(parentPath, prepared.regionName, prepared.parentDirectory);
+        Text regionText = new Text(prepared.regionName);
+        regionText.setX(BREADCRUMB_X + (path.getDepth() * BREADCRUMB_SPACING));
+        regionText.setY(BREADCRUMB_Y);
+        regionText.setFill(Color.YELLOW);
+        regionText.setStyle("-fx-font: 15px Verdana");
+        NavigationLevel level = new NavigationLevel(path, prepared, regionText);
+        regionText.setOnMouseClicked(e -> {
+            backTrack(level, game);
+        });
+        navigation.add(level);
+        game.getGuiLayer().getChildren().add(regionText);
+    }
+
+    // HELPER METHOD FOR TAKING A LEVEL'S BREADCRUMB OUT OF THE SCENE AND
+    // LETTING GO OF ITS REGION, UNLESS IT'S STILL BEING PLAYED
+    private void dropLevel(RegioVincoGame game, NavigationLevel level){
+        game.getGuiLayer().getChildren().remove(level.getBreadcrumb());
+        if(level.getSnapshot() != installedRegion){
+            level.getSnapshot().release();
+        }
+    }
+
+    // HELPER METHOD FOR TESTING WHETHER A REGION IS KEPT SO WE CAN GO
+    // BACK TO IT
+    private boolean isNavigationSnapshot(PreparedRegion prepared){
+        for(NavigationLevel level : navigation){
+            if(level.getSnapshot() == prepared){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // HELPER METHOD FOR GOING FROM A REGION'S DIRECTORY TO THE DIRECTORY
+    // OF THE REGION IT'S IN. A REGION ADDED SINCE STARTUP ISN'T IN THE
+    // INDEX, BUT ITS DIRECTORY STILL ENDS WITH ITS NAME
+    private String getParentDirectory(String directory, String name){
+        RegionNode node = regionIndex.getNode(directory);
+        if((node != null) && node.getName().equals(name) && (node.getParent() != null)){
+            return node.getParent().getDirectory();
+        }
+        if(directory.endsWith(name + "/")){
+            return directory.substring(0, directory.length() - name.length() - 1);
         }
-        currentDirectory = currentDirectory.replace(regionText.getText() + "/", "");
-        regionName = regionText.getText();
-        regionMapName = regionText.getText() + " Map.png";
-        reset(game);
+        return directory;
     }
 }
@@ -1,12 +1,14 @@
 package regio_vinco;
 
 import audio_manager.AudioManager;
+import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.image.PixelReader;
 import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseButton;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.Border;
 import javafx.scene.layout.Pane;
@@ -31,6 +33,7 @@ public class RegioVincoGame extends PointAndClickGame {
 
     // THIS PROVIDES MUSIC AND SOUND EFFECTS
     AudioManager audio;
+    SoundEffectService soundEffects;
     
     // THESE ARE THE GUI LAYERS
     Pane backgroundLayer;
@@ -38,6 +41,15 @@ public class RegioVincoGame extends PointAndClickGame {
     Pane guiLayer;
     Pane settingsLayer;
     Pane helpLayer;
+
+    // THE SUB-REGION SPRITES OF THE MAP BEING PLAYED, OVER THE MAP
+    private Group spriteLayer;
+
+    // THE MAP, ITS SPRITES AND ITS DETAILED TILES, ZOOMED AND PANNED
+    // TOGETHER, AND WHERE THE MAP WAS LAST DRAGGED TO
+    private MapViewport mapViewport;
+    private double dragX;
+    private double dragY;
     
     // GAME BUTTONS
     Button regionButton;
@@ -50,6 +62,11 @@ public class RegioVincoGame extends PointAndClickGame {
     private boolean playEffects;
     private boolean playMusic;
 
+    // HOW LONG EVERY FRAME TAKES, AND THE OVERLAY THAT SHOWS IT. NOTE THESE
+    // ARE MADE IN initGUIControls, WHICH RUNS BEFORE OUR CONSTRUCTOR
+    private FrameStats frameStats;
+    private PerformanceOverlay performanceOverlay;
+
 
     /**
      * Get the game setup.
@@ -82,6 +99,10 @@ public class RegioVincoGame extends PointAndClickGame {
 	return audio;
     }
     
+    public SoundEffectService getSoundEffectService() {
+        return soundEffects;
+    }
+    
     public Pane getBackgroundLayer(){
         return backgroundLayer;
     }
@@ -121,6 +142,14 @@ public class RegioVincoGame extends PointAndClickGame {
     public Button getStopButton(){
         return stopButton;
     }
+    
+    public FrameStats getFrameStats(){
+        return frameStats;
+    }
+    
+    public PerformanceOverlay getPerformanceOverlay(){
+        return performanceOverlay;
+    }
 
     /**
      * Initializes audio for the game.
@@ -130,13 +159,32 @@ public class RegioVincoGame extends PointAndClickGame {
 	try {
 	    audio.loadAudio(TRACKED_SONG, TRACKED_FILE_NAME);
 	    audio.play(TRACKED_SONG, true);
-
-	    audio.loadAudio(AFGHAN_ANTHEM, AFGHAN_ANTHEM_FILE_NAME);
-	    audio.loadAudio(SUCCESS, SUCCESS_FILE_NAME);
-	    audio.loadAudio(FAILURE, FAILURE_FILE_NAME);
 	} catch (Exception e) {
 	    
 	}
+        
+        // CLICKS PLAY THEIR EFFECTS ON A THREAD OF THEIR OWN
+        soundEffects = makeSoundEffectService();
+    }
+
+    /**
+     * Makes the service that plays the game's sound effects, and starts
+     * loading them. A game run with no sound device to open clips on, like
+     * the scripted player simulator's, overrides this to play none.
+     */
+    protected SoundEffectService makeSoundEffectService() {
+        SoundEffectService service = new SoundEffectService(SOUND_EFFECT_VOICES, frameStats.getSoundLatencies());
+        service.load(SUCCESS, SUCCESS_FILE_NAME);
+        service.load(FAILURE, FAILURE_FILE_NAME);
+        return service;
+    }
+
+    /**
+     * Makes the game's data model. A game run with no sound device to play
+     * anthems on overrides this to make one that plays none.
+     */
+    protected RegioVincoDataModel makeDataModel() {
+        return new RegioVincoDataModel();
     }
 
     // OVERRIDDEN METHODS - REGIO VINCO IMPLEMENTATIONS
@@ -154,7 +202,7 @@ public class RegioVincoGame extends PointAndClickGame {
     @Override
     public void initData() {
 	// INIT OUR DATA MANAGER
-	data = new RegioVincoDataModel();
+	data = makeDataModel();
 	data.setGameDimensions(GAME_WIDTH, GAME_HEIGHT);
 
 	boundaryLeft = 0;
@@ -262,12 +310,24 @@ public class RegioVincoGame extends PointAndClickGame {
 	// FOR NOW WE'LL JUST LOAD THE ImageView
 	// THAT WILL STORE THAT IMAGE
 	ImageView mapView = new ImageView();
-	mapView.setX(MAP_X);
-	mapView.setY(MAP_Y);
 	guiImages.put(MAP_TYPE, mapView);
-	guiLayer.getChildren().add(mapView);
+
+        // RECOLORED SUB-REGIONS ARE SHOWN RIGHT OVER THE MAP, AND BOTH ARE
+        // ZOOMED AND PANNED BY THE VIEWPORT
+        spriteLayer = new Group();
+        spriteLayer.setMouseTransparent(true);
+        mapViewport = new MapViewport(mapView, spriteLayer);
+        mapViewport.getNode().setLayoutX(MAP_X);
+        mapViewport.getNode().setLayoutY(MAP_Y);
+        guiLayer.getChildren().add(mapViewport.getNode());
         guiLayer.getChildren().add(((RegioVincoDataModel)data).getMouseText());
         guiLayer.getChildren().add(((RegioVincoDataModel)data).getFlagImageView());
+        guiLayer.getChildren().add(((RegioVincoDataModel)data).getLoadingIndicator());
+        
+        // THE FRAME TIMING OVERLAY GOES OVER EVERYTHING ELSE ON THE MAP
+        frameStats = new FrameStats(TARGET_FRAME_RATE);
+        performanceOverlay = new PerformanceOverlay(frameStats, getStackPane());
+        guiLayer.getChildren().add(performanceOverlay.getText());
         
         
 	// NOW LOAD THE WIN DISPLAY, WHICH WE'LL ONLY
@@ -384,14 +444,43 @@ public class RegioVincoGame extends PointAndClickGame {
 	// MAKE THE CONTROLLER THE HOOK FOR KEY PRESSES
 	keyController.setHook(controller);
 
-	// SETUP MOUSE PRESSES ON THE MAP
+	// SETUP MOUSE PRESSES ON THE MAP. NOTE THAT THE MAP'S OWN MOUSE
+	// EVENTS ARE IN MAP PIXELS HOWEVER FAR IT'S ZOOMED IN
 	ImageView mapView = guiImages.get(MAP_TYPE);
 	mapView.setOnMousePressed(e -> {
-	    controller.processMapClickRequest((int) e.getX(), (int) e.getY());
+            if (e.getButton() == MouseButton.SECONDARY) {
+                // THE RIGHT BUTTON DRAGS THE MAP AROUND
+                dragX = e.getSceneX();
+                dragY = e.getSceneY();
+                return;
+            }
+            if (e.getButton() != MouseButton.PRIMARY) {
+                return;
+            }
+            long inputStart = System.nanoTime();
+	    controller.processMapClickRequest(e.getX(), e.getY());
+            frameStats.recordInput(System.nanoTime() - inputStart);
 	});
         
+        mapView.setOnMouseDragged(e -> {
+            if (e.isSecondaryButtonDown()) {
+                mapViewport.pan(e.getSceneX() - dragX, e.getSceneY() - dragY);
+                dragX = e.getSceneX();
+                dragY = e.getSceneY();
+            }
+        });
+        
+        mapView.setOnScroll(e -> {
+            if (e.getDeltaY() != 0) {
+                double factor = (e.getDeltaY() > 0) ? MAP_ZOOM_STEP : (1 / MAP_ZOOM_STEP);
+                mapViewport.zoom(factor, e.getX(), e.getY());
+            }
+        });
+        
         mapView.setOnMouseMoved(e -> {
-            controller.processMouseOverRequest((int) e.getX(), (int) e.getY());
+            long inputStart = System.nanoTime();
+            controller.processMouseOverRequest(e.getX(), e.getY());
+            frameStats.recordInput(System.nanoTime() - inputStart);
         });
         
 	
@@ -436,6 +525,7 @@ public class RegioVincoGame extends PointAndClickGame {
 
     @Override
     public void updateGUI() {
+        long guiStart = System.nanoTime();
 	// IF THE GAME IS OVER, DISPLAY THE APPROPRIATE RESPONSE
         
 	if (data.won()) {
@@ -444,13 +534,24 @@ public class RegioVincoGame extends PointAndClickGame {
             closeButton.setVisible(true);
 	    winImage.setVisible(true);
 	}
+        frameStats.recordGui(System.nanoTime() - guiStart);
+    }
+
+    /**
+     * Called each frame, this times the frame around the framework's
+     * update, which calls updateAll and then updateGUI.
+     *
+     * @param percentage how far along the frame is, as the timer reports it
+     */
+    @Override
+    public void update(double percentage) {
+        long frameStart = frameStats.beginFrame();
+        super.update(percentage);
+        frameStats.endFrame(frameStart);
+        performanceOverlay.update();
     }
 
-    public void reloadMap(String map, String mapName) {
-        String path = ((RegioVincoDataModel) getDataModel()).getCurrentDirectory();
-	Image tempMapImage = loadImage(path + map + "/" + mapName);
-	PixelReader pixelReader = tempMapImage.getPixelReader();
-	WritableImage mapImage = new WritableImage(pixelReader, (int) tempMapImage.getWidth(), (int) tempMapImage.getHeight());
+    public void reloadMap(WritableImage mapImage) {
 	ImageView mapView = guiImages.get(MAP_TYPE);
 	mapView.setImage(mapImage);
 	int numSubRegions = ((RegioVincoDataModel) data).getRegionsFound() + ((RegioVincoDataModel) data).getRegionsNotFound();
@@ -459,4 +560,32 @@ public class RegioVincoGame extends PointAndClickGame {
 	// AND GIVE THE WRITABLE MAP TO THE DATA MODEL
 	((RegioVincoDataModel) data).setMapImage(mapImage);
     }
+
+    /**
+     * Puts a new map's sub-region sprites over it, replacing the old map's.
+     *
+     * @param sprites the new map's sprites, or null if it has none
+     */
+    public void reloadSprites(SubRegionSprites sprites) {
+        spriteLayer.getChildren().clear();
+        if (sprites != null) {
+            spriteLayer.getChildren().add(sprites.getGroup());
+        }
+    }
+
+    /**
+     * Starts showing a new map's detailed tiles as it's zoomed in, zoomed
+     * all the way out.
+     *
+     * @param pyramid the new map's pyramid, or null if it has none
+     * @param labelColors the color each of its labels is painted for play
+     */
+    public void reloadTiles(MapPyramid pyramid, int[] labelColors) {
+        Image mapImage = guiImages.get(MAP_TYPE).getImage();
+        mapViewport.setMap(mapImage.getWidth(), mapImage.getHeight(), pyramid, labelColors);
+    }
+
+    public MapViewport getMapViewport() {
+        return mapViewport;
+    }
 }
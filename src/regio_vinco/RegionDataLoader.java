@@ -0,0 +1,161 @@
+package regio_vinco;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import org.xml.sax.SAXException;
+import xml_utilities.InvalidXMLFileFormatException;
+
+/**
+ * This class reads the sub-regions listed in a region's Data.xml file. The
+ * file is streamed through once, element by element, rather than built into
+ * a document first, and each schema is compiled only the first time it's
+ * used.
+ *
+ * A loader may also be told to trust files it has already validated, in
+ * which case a file is only validated again if it has changed since.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionDataLoader {
+    // THE ELEMENT AND ATTRIBUTES OF THE REGION DATA FORMAT
+    private static final String SUB_REGION_ELEMENT = "sub_region";
+    private static final String RED_ATTRIBUTE = "red";
+    private static final String GREEN_ATTRIBUTE = "green";
+    private static final String BLUE_ATTRIBUTE = "blue";
+    private static final String NAME_ATTRIBUTE = "name";
+    private static final String CAPITAL_ATTRIBUTE = "capital";
+    private static final String LEADER_ATTRIBUTE = "leader";
+
+    // COMPILED SCHEMAS BY THE PATH OF THEIR FILE
+    private HashMap<String, Schema> schemas;
+
+    // WHEN EACH FILE THAT PASSED VALIDATION WAS LAST MODIFIED
+    private HashMap<String, Long> validatedFiles;
+    private boolean trustValidatedFiles;
+
+    private XMLInputFactory inputFactory;
+
+    /**
+     * Constructs a loader that validates every file it reads.
+     */
+    public RegionDataLoader() {
+        this(false);
+    }
+
+    /**
+     * Constructs a loader.
+     *
+     * @param initTrustValidatedFiles If true, a file that has passed
+     * validation isn't validated again until it's modified.
+     */
+    public RegionDataLoader(boolean initTrustValidatedFiles) {
+        trustValidatedFiles = initTrustValidatedFiles;
+        schemas = new HashMap();
+        validatedFiles = new HashMap();
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    }
+
+    /**
+     * Loads, validates and reads all the sub-regions in a Data.xml file.
+     *
+     * @param dataFilePath Path to the region's Data.xml file.
+     * @param schemaFilePath Path to the schema to validate against.
+     * @return The sub-regions, in the order the file lists them.
+     */
+    public synchronized ArrayList<SubRegion> loadSubRegions(String dataFilePath, String schemaFilePath) throws InvalidXMLFileFormatException {
+        File dataFile = new File(dataFilePath);
+        validate(dataFile, schemaFilePath);
+
+        ArrayList<SubRegion> subRegions = new ArrayList();
+        try (InputStream in = new BufferedInputStream(new FileInputStream(dataFile))) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if ((reader.next() == XMLStreamConstants.START_ELEMENT)
+                            && SUB_REGION_ELEMENT.equals(reader.getLocalName())) {
+                        subRegions.add(readSubRegion(reader));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | NumberFormatException ex) {
+            throw new InvalidXMLFileFormatException(dataFilePath);
+        }
+        return subRegions;
+    }
+
+    // HELPER METHOD FOR READING THE ATTRIBUTES OF THE sub_region ELEMENT
+    // THE READER IS ON
+    private SubRegion readSubRegion(XMLStreamReader reader) {
+        int red = 0, green = 0, blue = 0;
+        String name = null, capital = null, leader = null;
+        int numAttributes = reader.getAttributeCount();
+        for (int i = 0; i < numAttributes; i++) {
+            String value = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+                case RED_ATTRIBUTE:
+                    red = Integer.parseInt(value);
+                    break;
+                case GREEN_ATTRIBUTE:
+                    green = Integer.parseInt(value);
+                    break;
+                case BLUE_ATTRIBUTE:
+                    blue = Integer.parseInt(value);
+                    break;
+                case NAME_ATTRIBUTE:
+                    name = value;
+                    break;
+                case CAPITAL_ATTRIBUTE:
+                    capital = value;
+                    break;
+                case LEADER_ATTRIBUTE:
+                    leader = value;
+                    break;
+            }
+        }
+        return new SubRegion(name, capital, leader, red, green, blue);
+    }
+
+    // HELPER METHOD FOR VALIDATING A FILE, UNLESS WE TRUST IT ALREADY
+    private void validate(File dataFile, String schemaFilePath) throws InvalidXMLFileFormatException {
+        String dataFilePath = dataFile.getPath();
+        long lastModified = dataFile.lastModified();
+        Long validatedLastModified = validatedFiles.get(dataFilePath);
+        if (trustValidatedFiles && (validatedLastModified != null) && (validatedLastModified == lastModified)) {
+            return;
+        }
+        try {
+            getSchema(schemaFilePath).newValidator().validate(new StreamSource(dataFile));
+        } catch (SAXException | IOException ex) {
+            throw new InvalidXMLFileFormatException(dataFilePath, schemaFilePath);
+        }
+        validatedFiles.put(dataFilePath, lastModified);
+    }
+
+    // HELPER METHOD FOR GETTING A SCHEMA, COMPILING IT THE FIRST TIME
+    private Schema getSchema(String schemaFilePath) throws SAXException {
+        Schema schema = schemas.get(schemaFilePath);
+        if (schema == null) {
+            SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = factory.newSchema(new File(schemaFilePath));
+            schemas.put(schemaFilePath, schema);
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,163 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * This class indexes every region under the maps directory, and which of
+ * their files exist, so the game never has to ask the disk whether a file
+ * is there. The index is built once when the game starts, by listing every
+ * region directory just once, with the directories below each one listed
+ * in parallel.
+ *
+ * Regions are found by their directory, as in "./data/maps/The World/",
+ * which is how the game keeps track of where the player is.
+ *
+ * Names are matched the way the file system matches them. Where it ignores
+ * case, as on Windows and macOS, so does the index, so a file like
+ * "Netherlands Map.PNG" is found as the region's map just as File.exists
+ * would find it.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionIndex {
+    // THE MAPS DIRECTORY, WHICH HOLDS THE TOP REGIONS
+    private RegionNode root;
+
+    // EVERY REGION, BY ITS DIRECTORY
+    private Map<String, RegionNode> nodesByDirectory;
+
+    // WHETHER THE FILE SYSTEM, AND SO THE INDEX, IGNORES CASE
+    private boolean ignoreCase;
+
+    private RegionIndex(RegionNode initRoot, Map<String, RegionNode> initNodesByDirectory, boolean initIgnoreCase) {
+        root = initRoot;
+        nodesByDirectory = initNodesByDirectory;
+        ignoreCase = initIgnoreCase;
+    }
+
+    /**
+     * Builds the index of every region under a maps directory.
+     *
+     * @param mapsPath The maps directory, as in "./data/maps/".
+     * @return The index, which is empty apart from its root if the
+     * directory can't be read.
+     */
+    public static RegionIndex build(String mapsPath) {
+        ConcurrentHashMap<String, RegionNode> nodes = new ConcurrentHashMap();
+        File mapsDirectory = new File(mapsPath);
+        boolean ignoreCase = isCaseIgnored(mapsDirectory);
+        RegionNode root = walk(mapsDirectory, toDirectory(mapsPath), null, nodes, ignoreCase);
+        return new RegionIndex(root, nodes, ignoreCase);
+    }
+
+    // HELPER METHOD FOR TESTING WHETHER THE FILE SYSTEM A DIRECTORY IS ON
+    // IGNORES CASE, BY LOOKING FOR IT WITH ITS PATH IN THE OTHER CASE
+    private static boolean isCaseIgnored(File directory) {
+        String path = directory.getAbsolutePath();
+        String otherCase = path.toUpperCase(Locale.ROOT);
+        if (otherCase.equals(path)) {
+            otherCase = path.toLowerCase(Locale.ROOT);
+        }
+        return !otherCase.equals(path) && new File(otherCase).exists();
+    }
+
+    /**
+     * Gets the form a file or directory name is kept in by an index, which
+     * is the name itself, or the name in lower case if case is ignored.
+     *
+     * @param name The name as it's written.
+     * @param ignoreCase Whether the index ignores case.
+     * @return The name as the index keeps it.
+     */
+    static String toKey(String name, boolean ignoreCase) {
+        return ignoreCase ? name.toLowerCase(Locale.ROOT) : name;
+    }
+
+    // HELPER METHOD FOR LISTING A DIRECTORY, MAKING ITS NODE, AND THEN
+    // WALKING THE DIRECTORIES BELOW IT IN PARALLEL
+    private static RegionNode walk(File directory, String path, RegionNode parent, ConcurrentHashMap<String, RegionNode> nodes,
+            boolean ignoreCase) {
+        HashSet<String> fileNames = new HashSet();
+        ArrayList<File> subDirectories = new ArrayList();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    subDirectories.add(file);
+                } else {
+                    fileNames.add(toKey(file.getName(), ignoreCase));
+                }
+            }
+        }
+        Collections.sort(subDirectories);
+        RegionNode node = new RegionNode(directory.getName(), path, parent, fileNames, ignoreCase);
+        nodes.put(toKey(path, ignoreCase), node);
+        List<RegionNode> children = subDirectories.parallelStream()
+                .map(subDirectory -> walk(subDirectory, path + subDirectory.getName() + "/", node, nodes, ignoreCase))
+                .collect(Collectors.toList());
+        for (RegionNode child : children) {
+            node.addChild(child);
+        }
+        return node;
+    }
+
+    // HELPER METHOD FOR MAKING A PATH LOOK THE WAY THE GAME WRITES
+    // DIRECTORIES, WITH FORWARD SLASHES AND ONE AT THE END
+    private static String toDirectory(String path) {
+        String directory = path.replace(File.separatorChar, '/');
+        return directory.endsWith("/") ? directory : directory + "/";
+    }
+
+    // ACCESSOR METHODS
+
+    public RegionNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Finds a region by its directory.
+     *
+     * @param directory The region's directory, as in
+     * "./data/maps/The World/Europe/".
+     * @return The region, or null if the index has no such region.
+     */
+    public RegionNode getNode(String directory) {
+        return nodesByDirectory.get(toKey(toDirectory(directory), ignoreCase));
+    }
+
+    /**
+     * Finds a region in the region with the given directory.
+     *
+     * @param directory The directory of the region it's in.
+     * @param name The region's name.
+     * @return The region, or null if the index has no such region.
+     */
+    public RegionNode getNode(String directory, String name) {
+        RegionNode parent = getNode(directory);
+        return (parent == null) ? null : parent.getChild(name);
+    }
+
+    /**
+     * Gets the directory of the region a region is in.
+     *
+     * @param directory The region's directory.
+     * @return Its parent's directory, or the directory itself if it has
+     * no parent in the index.
+     */
+    public String getParentDirectory(String directory) {
+        RegionNode node = getNode(directory);
+        return ((node == null) || (node.getParent() == null)) ? directory : node.getParent().getDirectory();
+    }
+
+    public int getNumRegions() {
+        return nodesByDirectory.size();
+    }
+}
@@ -0,0 +1,448 @@
+package regio_vinco;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javafx.concurrent.Task;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class loads regions in the background so the game never freezes
+ * while a map loads. A load runs in stages, decoding the map, parsing its
+ * Data.xml file, scanning its pixels and then building the game's stack,
+ * with a progress indicator showing how far along it is. When it's done,
+ * the prepared region is handed back on the JavaFX thread to be swapped in.
+ *
+ * Only the most recently requested load ever finishes. Asking for another
+ * region while one is loading cancels the stale load.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionLoader {
+    // THE NUMBER OF STAGES A LOAD GOES THROUGH
+    private static final int NUM_STAGES = 4;
+
+    // ALL LOADS RUN ONE AT A TIME ON THIS THREAD
+    private ExecutorService executor;
+    private Task<PreparedRegion> currentTask;
+
+    // SHOWN WHILE A LOAD IS UNDER WAY
+    private ProgressIndicator progressIndicator;
+
+    private RegionDataLoader regionDataLoader;
+
+    // MAPS WE'VE ALREADY LOADED
+    private RegionMapCache regionMapCache;
+
+    // AND EVERY REGION'S RECORDS
+    private StatisticsStore statisticsStore;
+
+    // FLAGS ARE DECODED AND SHARED BY THIS
+    private FlagImageService flagImageService;
+
+    // WHICH REGIONS HAVE WHICH FILES, SO WE NEVER HAVE TO ASK THE DISK
+    private RegionIndex regionIndex;
+
+    /**
+     * Constructs a loader that reports its progress on the given indicator.
+     *
+     * @param initProgressIndicator Shown and updated while loading.
+     * @param initStatisticsStore Where every region's records are kept.
+     * @param initFlagImageService Decodes the flags loaded regions need.
+     * @param initRegionIndex Which regions have which files.
+     */
+    public RegionLoader(ProgressIndicator initProgressIndicator, StatisticsStore initStatisticsStore,
+            FlagImageService initFlagImageService, RegionIndex initRegionIndex) {
+        progressIndicator = initProgressIndicator;
+        statisticsStore = initStatisticsStore;
+        flagImageService = initFlagImageService;
+        regionIndex = initRegionIndex;
+        progressIndicator.setVisible(false);
+        regionDataLoader = new RegionDataLoader(true);
+        regionMapCache = new RegionMapCache(REGION_MAP_CACHE_BUDGET);
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Region Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Gets the cache of maps already loaded, which also counts how often
+     * loads found their map in it.
+     */
+    public RegionMapCache getRegionMapCache() {
+        return regionMapCache;
+    }
+
+    /**
+     * Tests whether a load is under way.
+     */
+    public boolean isLoading() {
+        return currentTask != null;
+    }
+
+    /**
+     * Starts loading a region in the background, cancelling any load that
+     * is already under way. Must be called on the JavaFX thread.
+     *
+     * @param region What to load.
+     * @param onLoaded Called on the JavaFX thread with the prepared region,
+     * unless the load is cancelled or fails first.
+     * @param onFailed Called on the JavaFX thread if the load fails.
+     */
+    public void load(PreparedRegion region, Consumer<PreparedRegion> onLoaded, Runnable onFailed) {
+        cancel();
+        Task<PreparedRegion> task = new Task<PreparedRegion>() {
+            @Override
+            protected PreparedRegion call() throws Exception {
+                // DECODE THE MAP, OR SKIP STRAIGHT TO THE END IF WE'VE
+                // ALREADY LOADED IT OR IT HAS A PACK
+                updateProgress(0, NUM_STAGES);
+                region.regionMap = regionMapCache.get(region.directory);
+                if (region.regionMap == null) {
+                    region.regionMap = loadPackedMap(region);
+                }
+                if (region.regionMap == null) {
+                    Image image = new Image("file:" + region.directory + region.regionMapName);
+                    if (image.isError()) {
+                        throw new IOException("Could not load map for " + region.regionName, image.getException());
+                    }
+                    if (isCancelled()) {
+                        return null;
+                    }
+
+                    // PARSE ITS SUB-REGIONS
+                    updateProgress(1, NUM_STAGES);
+                    ArrayList<SubRegion> subRegions = regionDataLoader.loadSubRegions(
+                            region.directory + region.regionName + " Data.xml", MAPS_PATH + SCHEMA_NAME);
+                    if (isCancelled()) {
+                        return null;
+                    }
+
+                    // AND SCAN IT
+                    updateProgress(2, NUM_STAGES);
+                    int width = (int) image.getWidth();
+                    int height = (int) image.getHeight();
+                    int[] pixels = new int[width * height];
+                    image.getPixelReader().getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+                    region.regionMap = RegionMap.build(region.regionName, pixels, width, height, subRegions);
+                }
+                regionMapCache.put(region.directory, region.regionMap);
+                if (isCancelled()) {
+                    return null;
+                }
+
+                // THEN SET UP THE GAME ON IT
+                updateProgress(3, NUM_STAGES);
+                prepareGame(region);
+                updateProgress(NUM_STAGES, NUM_STAGES);
+                return region;
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (task == currentTask) {
+                finish();
+                onLoaded.accept(task.getValue());
+            } else {
+                task.getValue().release();
+            }
+        });
+        task.setOnFailed(e -> {
+            if (task == currentTask) {
+                finish();
+                Logger.getLogger(RegionLoader.class.getName()).log(Level.SEVERE, null, task.getException());
+                onFailed.run();
+            }
+        });
+        currentTask = task;
+        progressIndicator.progressProperty().bind(task.progressProperty());
+        progressIndicator.setVisible(true);
+        executor.execute(() -> {
+            // A CANCELLED LOAD MAY STILL HAVE GOTTEN AS FAR AS OPENING THE
+            // REGION'S PYRAMID, WHICH NO ONE ELSE WILL EVER CLOSE
+            task.run();
+            if (task.isCancelled()) {
+                region.release();
+            }
+        });
+    }
+
+    /**
+     * Cancels the load under way, if there is one.
+     */
+    public void cancel() {
+        if (currentTask != null) {
+            currentTask.cancel(true);
+            finish();
+        }
+    }
+
+    // HELPER METHOD FOR PUTTING AWAY THE PROGRESS INDICATOR
+    private void finish() {
+        currentTask = null;
+        progressIndicator.progressProperty().unbind();
+        progressIndicator.setVisible(false);
+    }
+
+    /**
+     * Loads a region's map from its pack, if it has an up to date one. A
+     * pack that can't be read, for whatever reason, is logged and passed
+     * over so the region is loaded from its map image and Data.xml instead.
+     *
+     * @return The region map, or null if the region has no usable pack.
+     */
+    private RegionMap loadPackedMap(PreparedRegion region) {
+        RegionNode node = regionIndex.getNode(region.directory);
+        if ((node != null) && node.hasMapPack()) {
+            File packFile = new File(region.directory + region.regionName + MapPack.MAP_PACK_SUFFIX);
+            try {
+                return MapPack.load(region.regionName, packFile, new File(region.directory + region.regionMapName),
+                        new File(region.directory + region.regionName + " Data.xml"));
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(RegionLoader.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets up a different game on a region that's already loaded. Its map
+     * and sub-region table are reused as they are, and so is its painted
+     * map whenever the new game paints it the same way, so nothing is read
+     * or scanned again and only the labels and the stack are rebuilt. Must
+     * be called on the JavaFX thread.
+     *
+     * @param loaded The region as it's loaded now.
+     * @param gameType The game to play on it.
+     * @param handOver True if the loaded region won't be played again, so
+     * its map image and sprites may be taken for the new game.
+     * @return The region set up for the new game, still to be swapped in,
+     * or null if it's the flag game and not every flag is decoded yet, in
+     * which case it must be loaded instead, so the JavaFX thread never
+     * waits on a decode.
+     */
+    public PreparedRegion switchGame(PreparedRegion loaded, int gameType, boolean handOver) {
+        Map<String, Image> decodedFlags = null;
+        if (gameType == 4) {
+            decodedFlags = getDecodedFlags(loaded);
+            if (decodedFlags == null) {
+                return null;
+            }
+        }
+        cancel();
+        PreparedRegion region = new PreparedRegion(loaded.regionName, loaded.regionMapName, loaded.parentDirectory,
+                gameType, true);
+        region.regionMap = loaded.regionMap;
+        prepareGame(region, loaded, handOver, decodedFlags);
+        return region;
+    }
+
+    // HELPER METHOD FOR GETTING THE FLAGS OF ALL OF A LOADED REGION'S
+    // SUB-REGIONS, OR null IF ANY AREN'T DECODED YET, IN WHICH CASE THEY'RE
+    // ALL BEING DECODED NOW
+    private Map<String, Image> getDecodedFlags(PreparedRegion loaded) {
+        HashMap<String, Image> decodedFlags = new HashMap();
+        boolean allDecoded = true;
+        for (SubRegion subRegion : loaded.regionMap.getSubRegions()) {
+            String name = getSubRegionText(subRegion, 4);
+            RegionNode subRegionNode = regionIndex.getNode(loaded.directory, name);
+            if ((subRegionNode != null) && subRegionNode.hasFlag()) {
+                Image flagImage = flagImageService.getIfDecoded(FlagImageService.getFlagPath(loaded.directory, name));
+                allDecoded &= (flagImage != null);
+                decodedFlags.put(name, flagImage);
+            }
+        }
+        return allDecoded ? decodedFlags : null;
+    }
+
+    /**
+     * Sets up everything the game needs on a loaded map: what it calls each
+     * sub-region, the region's records, the painted map and the shuffled
+     * stack of sub-regions to find.
+     */
+    void prepareGame(PreparedRegion region) {
+        prepareGame(region, null, false, null);
+    }
+
+    // HELPER METHOD FOR SETTING UP A GAME, REUSING WHAT WE CAN OF ANOTHER
+    // GAME ON THE SAME MAP, IF THERE IS ONE, AND ANY FLAGS ALREADY DECODED
+    private void prepareGame(PreparedRegion region, PreparedRegion loaded, boolean handOver,
+            Map<String, Image> decodedFlags) {
+        ArrayList<SubRegion> subRegions = region.regionMap.getSubRegions();
+        int numLabels = subRegions.size();
+        region.colorToSubRegionMappings = new HashMap();
+        region.subRegionToColorMappings = new HashMap();
+        region.subRegionToLabelMappings = new HashMap();
+        region.subRegionsByLabel = new String[numLabels + 1];
+        for (int label = 1; label <= numLabels; label++) {
+            SubRegion subRegion = subRegions.get(label - 1);
+            String subRegionText = getSubRegionText(subRegion, region.gameType);
+            region.hasNames |= (subRegion.getName() != null);
+            region.hasCapitals |= (subRegion.getCapital() != null);
+            region.hasLeaders |= (subRegion.getLeader() != null);
+            region.colorToSubRegionMappings.put(RegioVincoDataModel.makeColor(subRegion.getRed(), subRegion.getGreen(), subRegion.getBlue()), subRegionText);
+            region.subRegionToLabelMappings.put(subRegionText, label);
+            region.subRegionsByLabel[label] = subRegionText;
+        }
+
+        RegionStatistics records = statisticsStore.get(region.directory);
+        region.highScore = records.getHighScore();
+        region.bestTime = records.getBestTime();
+        paintMap(region, loaded, handOver);
+        if (SPRITE_RECOLORING && (region.gameType != 0)) {
+            if (handOver && (loaded.sprites != null)) {
+                region.sprites = loaded.sprites;
+                region.sprites.restoreAll();
+                loaded.sprites = null;
+            } else {
+                region.sprites = SubRegionSprites.build(region.regionMap.getSpans());
+            }
+        }
+        if (SPRITE_RECOLORING || (region.gameType == 0)) {
+            region.pyramid = openPyramid(region);
+        }
+        buildStack(region, decodedFlags);
+    }
+
+    /**
+     * Opens a region's map pyramid, if it has an up to date one that fits
+     * its map. Note that when sub-regions are recolored by rewriting the
+     * map's pixels, the tiles would hide that, so games then go without,
+     * as do regions whose pyramid can't be read.
+     *
+     * @return The pyramid, or null if the region has no usable one.
+     */
+    private MapPyramid openPyramid(PreparedRegion region) {
+        RegionNode node = regionIndex.getNode(region.directory);
+        if ((node != null) && node.hasMapPyramid()) {
+            File pyramidFile = new File(region.directory + region.regionName + MapPyramid.MAP_PYRAMID_SUFFIX);
+            try {
+                MapPyramid pyramid = MapPyramid.open(pyramidFile,
+                        new File(region.directory + region.regionName + MapPyramid.DETAIL_MAP_SUFFIX),
+                        new File(region.directory + region.regionName + " Data.xml"));
+                if ((pyramid != null) && ((pyramid.getBaseWidth() != region.regionMap.getWidth())
+                        || (pyramid.getBaseHeight() != region.regionMap.getHeight()))) {
+                    pyramid.close();
+                    pyramid = null;
+                }
+                return pyramid;
+            } catch (IOException | RuntimeException ex) {
+                Logger.getLogger(RegionLoader.class.getName()).log(Level.WARNING, null, ex);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets what a game calls a sub-region, its name, capital or leader.
+     *
+     * @param subRegion The sub-region.
+     * @param gameType The game being played.
+     * @return The sub-region's text in that game, never null.
+     */
+    public static String getSubRegionText(SubRegion subRegion, int gameType) {
+        String text;
+        switch (gameType) {
+            case 3:
+                text = subRegion.getCapital();
+                break;
+            case 2:
+                text = subRegion.getLeader();
+                break;
+            default:
+                text = subRegion.getName();
+                break;
+        }
+        return (text == null) ? "" : text;
+    }
+
+    // HELPER METHOD FOR PAINTING A COPY OF THE MAP FOR PLAY, WITH REGIONS
+    // WE CAN'T NAVIGATE INTO IN PINK. NOTE THAT THE TOP LEFT PIXEL IS THE
+    // OUTSIDE BORDER COLOR, WHICH WE MAKE TRANSPARENT. ANOTHER GAME'S
+    // PAINTING IS REUSED IF IT'S THE SAME, AND SO IS ITS IMAGE IF IT'S
+    // BEING HANDED OVER AND NOTHING HAS BEEN DRAWN ON IT
+    private void paintMap(PreparedRegion region, PreparedRegion loaded, boolean handOver) {
+        RegionMap regionMap = region.regionMap;
+        ArrayList<SubRegion> subRegions = regionMap.getSubRegions();
+        int[] labelColors = new int[subRegions.size() + 1];
+        for (int label = 1; label < labelColors.length; label++) {
+            RegionNode subRegionNode = regionIndex.getNode(region.directory, region.subRegionsByLabel[label]);
+            if (((subRegionNode == null) || !subRegionNode.hasData()) && region.gameType == 0) {
+                labelColors[label] = RegioVincoDataModel.toArgb(Color.PINK);
+            } else {
+                labelColors[label] = subRegions.get(label - 1).getKeyArgb();
+            }
+        }
+        int width = regionMap.getWidth();
+        int height = regionMap.getHeight();
+        int[] mapPixels;
+        if ((loaded != null) && Arrays.equals(labelColors, loaded.labelColors)) {
+            mapPixels = loaded.paintedMapPixels;
+            if (handOver && !loaded.mapDrawnOn) {
+                region.mapImage = loaded.mapImage;
+                region.paintedMapPixels = mapPixels;
+                region.labelColors = labelColors;
+                return;
+            }
+        } else {
+            mapPixels = regionMap.getPixels().clone();
+            MapPixelClassifier.paint(mapPixels, regionMap.getLabelMap(), mapPixels[0], labelColors);
+        }
+        region.mapImage = new WritableImage(width, height);
+        region.mapImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), mapPixels, 0, width);
+        region.paintedMapPixels = mapPixels;
+        region.labelColors = labelColors;
+    }
+
+    // HELPER METHOD FOR BUILDING THE STACK OF SUB-REGIONS TO FIND, WAITING
+    // FOR ANY FLAGS IT NEEDS THAT WEREN'T ALREADY DECODED
+    private void buildStack(PreparedRegion region, Map<String, Image> decodedFlags) {
+        int gameType = region.gameType;
+        region.subRegionStack = new LinkedList();
+
+        // FIND THE FLAGS AND START DECODING THEM ALL AT ONCE, SINCE EITHER
+        // THE STACK OR MOUSE OVERS WILL NEED THEM
+        for (String subRegion : region.colorToSubRegionMappings.values()) {
+            String flagPath = FlagImageService.getFlagPath(region.directory, subRegion);
+            RegionNode subRegionNode = regionIndex.getNode(region.directory, subRegion);
+            if ((subRegionNode != null) && subRegionNode.hasFlag()) {
+                region.hasFlags = true;
+                region.subRegionsWithFlags.add(subRegion);
+                if ((gameType == 0) || (gameType == 4)) {
+                    flagImageService.request(flagPath);
+                }
+            }
+        }
+
+        // THE STACK IS JUST DATA, THE VIEW MAKES NODES FOR WHAT'S ON SCREEN
+        for (Color c : region.colorToSubRegionMappings.keySet()) {
+            String subRegion = region.colorToSubRegionMappings.get(c);
+            region.subRegionToColorMappings.put(subRegion, c);
+            if ((gameType == 4) && region.subRegionsWithFlags.contains(subRegion)) {
+                Image flagImage = (decodedFlags != null) ? decodedFlags.get(subRegion)
+                        : flagImageService.get(FlagImageService.getFlagPath(region.directory, subRegion));
+                region.subRegionStack.add(new StackEntry(subRegion, c, flagImage));
+            } else {
+                region.subRegionStack.add(new StackEntry(subRegion, c));
+            }
+        }
+
+        Collections.shuffle(region.subRegionStack);
+    }
+}
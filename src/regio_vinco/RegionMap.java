@@ -0,0 +1,166 @@
+package regio_vinco;
+
+import java.util.ArrayList;
+import javafx.geometry.Rectangle2D;
+
+/**
+ * This class holds everything about a region's map that does not depend on
+ * which game is being played on it: the map pixels as decoded from its
+ * image, its sub-regions, and the label raster and spans that say where
+ * each sub-region is. Sub-region i in the list has label i + 1. It also
+ * knows the box around everything drawn on the map, so work on the map
+ * can skip the empty background around it.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionMap {
+    // ROUGHLY WHAT EACH SUB-REGION'S NAMES AND COLORS TAKE UP
+    private static final int SUB_REGION_BYTES = 128;
+
+    private String regionName;
+    private int width;
+    private int height;
+    private int[] pixels;
+    private ArrayList<SubRegion> subRegions;
+    private SubRegionLabelMap labelMap;
+    private SubRegionSpans spans;
+    private Rectangle2D contentBounds;
+
+    /**
+     * Constructs a region map from its already-built parts.
+     */
+    public RegionMap(String initRegionName, int initWidth, int initHeight, int[] initPixels,
+            ArrayList<SubRegion> initSubRegions, SubRegionLabelMap initLabelMap, SubRegionSpans initSpans) {
+        regionName = initRegionName;
+        width = initWidth;
+        height = initHeight;
+        pixels = initPixels;
+        subRegions = initSubRegions;
+        labelMap = initLabelMap;
+        spans = initSpans;
+        contentBounds = findContentBounds(pixels, width, height);
+    }
+
+    // HELPER METHOD FOR FINDING THE BOX AROUND EVERYTHING DRAWN ON THE MAP,
+    // WHICH IS EVERY PIXEL NOT THE BACKGROUND COLOR OF THE TOP LEFT ONE.
+    // NOTE THE SEARCH WORKS IN FROM THE EDGES, SO IT ONLY LOOKS AT THE
+    // BACKGROUND AROUND THE MAP
+    private static Rectangle2D findContentBounds(int[] pixels, int width, int height) {
+        int background = pixels[0];
+        int top = 0;
+        while ((top < height) && isBackgroundRow(pixels, width, top, background)) {
+            top++;
+        }
+        if (top == height) {
+            return Rectangle2D.EMPTY;
+        }
+        int bottom = height;
+        while (isBackgroundRow(pixels, width, bottom - 1, background)) {
+            bottom--;
+        }
+        int left = width;
+        int right = 0;
+        for (int row = top; row < bottom; row++) {
+            int rowStart = row * width;
+            int x = 0;
+            while ((x < left) && (pixels[rowStart + x] == background)) {
+                x++;
+            }
+            left = Math.min(left, x);
+            x = width;
+            while ((x > right) && (pixels[rowStart + x - 1] == background)) {
+                x--;
+            }
+            right = Math.max(right, x);
+        }
+        return new Rectangle2D(left, top, right - left, bottom - top);
+    }
+
+    // HELPER METHOD FOR TESTING IF A ROW IS ALL BACKGROUND
+    private static boolean isBackgroundRow(int[] pixels, int width, int row, int background) {
+        int end = (row + 1) * width;
+        for (int i = row * width; i < end; i++) {
+            if (pixels[i] != background) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds a region map from its decoded map pixels and sub-regions,
+     * labeling every pixel and gathering the spans of every sub-region.
+     *
+     * @param regionName The name of the region.
+     * @param pixels The decoded map pixels, row by row, in ARGB form.
+     * @param width The width of the map.
+     * @param height The height of the map.
+     * @param subRegions The sub-regions of the region.
+     * @return The region map.
+     */
+    public static RegionMap build(String regionName, int[] pixels, int width, int height, ArrayList<SubRegion> subRegions) {
+        int[] keyColors = new int[subRegions.size()];
+        for (int i = 0; i < keyColors.length; i++) {
+            keyColors[i] = subRegions.get(i).getKeyArgb();
+        }
+        SubRegionLabelMap labelMap = new MapPixelClassifier(keyColors).classify(pixels, width, height);
+        SubRegionSpans spans = SubRegionSpans.build(labelMap, subRegions.size());
+        return new RegionMap(regionName, width, height, pixels, subRegions, labelMap, spans);
+    }
+
+    // ACCESSOR METHODS
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the map pixels as decoded, which must not be changed since they
+     * are shared by every game played on this map.
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public ArrayList<SubRegion> getSubRegions() {
+        return subRegions;
+    }
+
+    public SubRegionLabelMap getLabelMap() {
+        return labelMap;
+    }
+
+    public SubRegionSpans getSpans() {
+        return spans;
+    }
+
+    /**
+     * Gets the box around everything drawn on the map, in map pixels.
+     * Outside it the map is all background, which is transparent in play.
+     */
+    public Rectangle2D getContentBounds() {
+        return contentBounds;
+    }
+
+    /**
+     * Estimates how much memory this map takes up, counting its pixels,
+     * labels, spans and what's known about each sub-region, which are
+     * nearly all of it.
+     *
+     * @return The approximate size of this map in bytes.
+     */
+    public long getSizeInBytes() {
+        long numPixels = (long) width * height;
+        long numLabels = subRegions.size();
+        return (4 * numPixels) + (2 * numPixels) + (12L * spans.getNumSpans())
+                + (40 * (numLabels + 2)) + (SUB_REGION_BYTES * numLabels);
+    }
+}
@@ -0,0 +1,112 @@
+package regio_vinco;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class keeps recently loaded region maps in memory, keyed by the
+ * path of the region's directory, so that moving back and forth between a
+ * region and the regions inside it doesn't load the same maps from disk
+ * over and over. The maps it holds may add up to no more than its byte
+ * budget, and when a new map doesn't fit, the least recently used ones are
+ * dropped to make room.
+ *
+ * Region maps are never changed once built, so one cached map may be used
+ * by any number of games.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionMapCache {
+    // THE MAPS, FROM LEAST TO MOST RECENTLY USED
+    private LinkedHashMap<String, RegionMap> regionMaps;
+
+    // HOW MUCH MEMORY THE MAPS MAY USE, AND HOW MUCH THEY DO
+    private long byteBudget;
+    private long bytesUsed;
+
+    // HOW OFTEN WE FOUND WHAT WE WERE LOOKING FOR
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param initByteBudget The most memory, in bytes, the cached maps may use.
+     */
+    public RegionMapCache(long initByteBudget) {
+        byteBudget = initByteBudget;
+        regionMaps = new LinkedHashMap(16, 0.75f, true);
+    }
+
+    /**
+     * Gets the cached map for a region, counting it as a hit or a miss.
+     *
+     * @param regionPath The path of the region's directory.
+     * @return The region's map, or null if it isn't cached.
+     */
+    public synchronized RegionMap get(String regionPath) {
+        RegionMap regionMap = regionMaps.get(regionPath);
+        if (regionMap == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return regionMap;
+    }
+
+    /**
+     * Adds a region's map to the cache, dropping the least recently used
+     * maps until it fits. A map bigger than the whole budget isn't cached.
+     *
+     * @param regionPath The path of the region's directory.
+     * @param regionMap The region's map.
+     */
+    public synchronized void put(String regionPath, RegionMap regionMap) {
+        long size = regionMap.getSizeInBytes();
+        RegionMap replaced = regionMaps.remove(regionPath);
+        if (replaced != null) {
+            bytesUsed -= replaced.getSizeInBytes();
+        }
+        if (size > byteBudget) {
+            return;
+        }
+        Iterator<Map.Entry<String, RegionMap>> leastRecentlyUsed = regionMaps.entrySet().iterator();
+        while ((bytesUsed + size) > byteBudget) {
+            bytesUsed -= leastRecentlyUsed.next().getValue().getSizeInBytes();
+            leastRecentlyUsed.remove();
+        }
+        regionMaps.put(regionPath, regionMap);
+        bytesUsed += size;
+    }
+
+    /**
+     * Empties the cache. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        regionMaps.clear();
+        bytesUsed = 0;
+    }
+
+    // ACCESSOR METHODS
+
+    public synchronized int getSize() {
+        return regionMaps.size();
+    }
+
+    public synchronized long getBytesUsed() {
+        return bytesUsed;
+    }
+
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,152 @@
+package regio_vinco;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * This class stores one region in the region index: where its directory
+ * is, which regions are in it, and which of its files exist. It never goes
+ * back to the disk, so asking it about a region costs nothing.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionNode {
+    // WHAT A REGION'S FILES ARE CALLED, AFTER ITS NAME
+    public static final String MAP_SUFFIX = " Map.png";
+    public static final String DATA_SUFFIX = " Data.xml";
+    public static final String FLAG_SUFFIX = " Flag.png";
+    public static final String ANTHEM_SUFFIX = " National Anthem.mid";
+    public static final String LEADER_SUFFIX = " Leader.png";
+
+    private String name;
+    private String directory;
+    private RegionNode parent;
+
+    // THE REGIONS IN THIS ONE, BY NAME, IN NAME ORDER
+    private LinkedHashMap<String, RegionNode> children;
+
+    // WHETHER NAMES ARE MATCHED IGNORING CASE, AS THE FILE SYSTEM DOES
+    private boolean ignoreCase;
+
+    // WHICH OF THE REGION'S FILES EXIST
+    private boolean hasMap;
+    private boolean hasData;
+    private boolean hasFlag;
+    private boolean hasAnthem;
+    private boolean hasLeaderImage;
+    private boolean hasMapPack;
+    private boolean hasMapPyramid;
+
+    /**
+     * Constructs a region from the names of the files in its directory.
+     * Its children are added once they've been found.
+     *
+     * @param initName The region's name, which is its directory's name.
+     * @param initDirectory The region's directory, ending in a slash.
+     * @param initParent The region this one is in, or null for the top.
+     * @param fileNames The names of the files in its directory, in lower
+     * case if case is ignored.
+     * @param initIgnoreCase Whether names are matched ignoring case.
+     */
+    public RegionNode(String initName, String initDirectory, RegionNode initParent, Set<String> fileNames,
+            boolean initIgnoreCase) {
+        name = initName;
+        directory = initDirectory;
+        parent = initParent;
+        ignoreCase = initIgnoreCase;
+        children = new LinkedHashMap();
+        hasMap = hasFile(fileNames, MAP_SUFFIX);
+        hasData = hasFile(fileNames, DATA_SUFFIX);
+        hasFlag = hasFile(fileNames, FLAG_SUFFIX);
+        hasAnthem = hasFile(fileNames, ANTHEM_SUFFIX);
+        hasLeaderImage = hasFile(fileNames, LEADER_SUFFIX);
+        hasMapPack = hasFile(fileNames, MapPack.MAP_PACK_SUFFIX);
+        hasMapPyramid = hasFile(fileNames, MapPyramid.MAP_PYRAMID_SUFFIX)
+                && hasFile(fileNames, MapPyramid.DETAIL_MAP_SUFFIX);
+    }
+
+    // HELPER METHOD FOR TESTING WHETHER ONE OF THE REGION'S FILES EXISTS
+    private boolean hasFile(Set<String> fileNames, String suffix) {
+        return fileNames.contains(RegionIndex.toKey(name + suffix, ignoreCase));
+    }
+
+    // ACCESSOR METHODS
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public RegionNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets a region in this one.
+     *
+     * @param childName The region's name.
+     * @return The region, or null if there's no such region in this one.
+     */
+    public RegionNode getChild(String childName) {
+        return children.get(RegionIndex.toKey(childName, ignoreCase));
+    }
+
+    public Collection<RegionNode> getChildren() {
+        return Collections.unmodifiableCollection(children.values());
+    }
+
+    /**
+     * Tells whether this region can be played, which needs both its map
+     * and its Data.xml file.
+     */
+    public boolean isPlayable() {
+        return hasMap && hasData;
+    }
+
+    public boolean hasMap() {
+        return hasMap;
+    }
+
+    public boolean hasData() {
+        return hasData;
+    }
+
+    public boolean hasFlag() {
+        return hasFlag;
+    }
+
+    public boolean hasAnthem() {
+        return hasAnthem;
+    }
+
+    public boolean hasLeaderImage() {
+        return hasLeaderImage;
+    }
+
+    public boolean hasMapPack() {
+        return hasMapPack;
+    }
+
+    public boolean hasMapPyramid() {
+        return hasMapPyramid;
+    }
+
+    public String getFlagPath() {
+        return directory + name + FLAG_SUFFIX;
+    }
+
+    public String getAnthemPath() {
+        return directory + name + ANTHEM_SUFFIX;
+    }
+
+    // MUTATOR METHODS
+
+    void addChild(RegionNode child) {
+        children.put(RegionIndex.toKey(child.getName(), ignoreCase), child);
+    }
+}
@@ -0,0 +1,63 @@
+package regio_vinco;
+
+/**
+ * This class names where the player is in the region hierarchy: a region,
+ * the directory it's in, and the path to the region above it. Paths never
+ * change once made, so going deeper makes a new path that shares its
+ * parent's, and going back up is just using a parent again.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionPath {
+    private final RegionPath parent;
+    private final String regionName;
+    private final String parentDirectory;
+    private final int depth;
+
+    /**
+     * Constructs the path to a region.
+     *
+     * @param initParent The path to the region this one is in, or null if
+     * this is the first region navigated into.
+     * @param initRegionName The region's name.
+     * @param initParentDirectory The directory the region's directory is in.
+     */
+    public RegionPath(RegionPath initParent, String initRegionName, String initParentDirectory) {
+        parent = initParent;
+        regionName = initRegionName;
+        parentDirectory = initParentDirectory;
+        depth = (parent == null) ? 0 : parent.getDepth() + 1;
+    }
+
+    // ACCESSOR METHODS
+
+    public RegionPath getParent() {
+        return parent;
+    }
+
+    public String getRegionName() {
+        return regionName;
+    }
+
+    public String getParentDirectory() {
+        return parentDirectory;
+    }
+
+    /**
+     * Gets the region's own directory, which holds its map and its data.
+     */
+    public String getDirectory() {
+        return parentDirectory + regionName + "/";
+    }
+
+    public String getRegionMapName() {
+        return regionName + " Map.png";
+    }
+
+    /**
+     * Gets how many regions are above this one, 0 for the first.
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
@@ -0,0 +1,34 @@
+package regio_vinco;
+
+/**
+ * This class stores the records a player has set on one region, its high
+ * score and its best time in seconds. A region that has never been won has
+ * 0 for both.
+ *
+ * @author McKillaGorilla
+ */
+public class RegionStatistics {
+    // FOR A REGION WITH NO RECORDS YET
+    public static final RegionStatistics NONE = new RegionStatistics(0, 0);
+
+    private int highScore;
+    private int bestTime;
+
+    /**
+     * Constructs a region's records.
+     */
+    public RegionStatistics(int initHighScore, int initBestTime) {
+        highScore = initHighScore;
+        bestTime = initBestTime;
+    }
+
+    // ACCESSOR METHODS
+
+    public int getHighScore() {
+        return highScore;
+    }
+
+    public int getBestTime() {
+        return bestTime;
+    }
+}
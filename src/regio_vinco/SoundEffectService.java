@@ -0,0 +1,147 @@
+package regio_vinco;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class plays short sound effects, like the ones for right and wrong
+ * clicks. Each effect gets a few clips, opened ahead of time, so the same
+ * effect can overlap itself instead of cutting itself off. Clips are only
+ * ever touched on the service's own thread, so playing one never holds up
+ * the click that asked for it. How long each effect takes to start is
+ * counted, from when it's asked for until its clip's start method returns,
+ * which doesn't include however long the audio line itself buffers. A
+ * warning is logged whenever the 99th percentile of that time goes over
+ * SOUND_EFFECT_LATENCY_TARGET.
+ *
+ * @author McKillaGorilla
+ */
+public class SoundEffectService {
+    // EVERY EFFECT'S CLIPS, AND WHICH OF THEM IS NEXT IN TURN, BY THE
+    // EFFECT'S NAME
+    private HashMap<String, Clip[]> voices;
+    private HashMap<String, Integer> nextVoices;
+
+    // HOW MANY CLIPS EACH EFFECT GETS
+    private int numVoices;
+
+    // HOW LONG EFFECTS TAKE TO START, AND WHETHER THAT'S ALREADY BEEN
+    // REPORTED AS OVER THE TARGET
+    private LatencyHistogram latencies;
+    private boolean overTarget;
+
+    // ALL THE WORK IS DONE HERE, IN THE ORDER IT WAS ASKED FOR
+    private ExecutorService player;
+
+    /**
+     * Constructs a service with no effects loaded.
+     *
+     * @param initNumVoices How many of each effect may play at once.
+     * @param initLatencies Where to count how long effects take to start.
+     */
+    public SoundEffectService(int initNumVoices, LatencyHistogram initLatencies) {
+        voices = new HashMap();
+        nextVoices = new HashMap();
+        numVoices = initNumVoices;
+        latencies = initLatencies;
+        player = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Sound Effects");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts reading an effect and opening its clips in the background.
+     * Asking for the effect before this is done just plays it when it is.
+     *
+     * @param name The name the effect is played by.
+     * @param path The path of the effect's sampled audio file.
+     */
+    public void load(String name, String path) {
+        player.execute(() -> {
+            try (AudioInputStream stream = AudioSystem.getAudioInputStream(new File(path))) {
+                AudioFormat format = stream.getFormat();
+                byte[] data = new byte[(int) stream.getFrameLength() * format.getFrameSize()];
+                int read = 0;
+                while (read < data.length) {
+                    int count = stream.read(data, read, data.length - read);
+                    if (count < 0) {
+                        break;
+                    }
+                    read += count;
+                }
+
+                // EVERY CLIP SHARES THE SAME SAMPLES
+                Clip[] clips = new Clip[numVoices];
+                for (int i = 0; i < numVoices; i++) {
+                    clips[i] = AudioSystem.getClip();
+                    clips[i].open(format, data, 0, read);
+                }
+                voices.put(name, clips);
+                nextVoices.put(name, 0);
+            } catch (Exception ex) {
+                Logger.getLogger(SoundEffectService.class.getName()).log(Level.WARNING, path, ex);
+            }
+        });
+    }
+
+    /**
+     * Plays an effect from the start. If all of its clips are playing, the
+     * one next in turn, which was started longest ago, is restarted. This
+     * never waits.
+     *
+     * @param name The name the effect was loaded by.
+     */
+    public void play(String name) {
+        long requested = System.nanoTime();
+        player.execute(() -> {
+            Clip[] clips = voices.get(name);
+            if (clips == null) {
+                return;
+            }
+
+            // USE THE FIRST IDLE CLIP, LOOKING FROM THE ONE NEXT IN TURN,
+            // WHICH IS ALSO THE ONE WE RESTART IF NONE ARE IDLE
+            int first = nextVoices.get(name);
+            int voice = first;
+            for (int i = 0; i < clips.length; i++) {
+                int candidate = (first + i) % clips.length;
+                if (!clips[candidate].isRunning()) {
+                    voice = candidate;
+                    break;
+                }
+            }
+            Clip clip = clips[voice];
+            clip.stop();
+            clip.setFramePosition(0);
+            clip.start();
+            nextVoices.put(name, (voice + 1) % clips.length);
+            latencies.record(System.nanoTime() - requested);
+            checkLatency();
+        });
+    }
+
+    // HELPER METHOD FOR WARNING ONCE EACH TIME EFFECTS START GOING OVER
+    // THE TARGET FOR HOW LONG THEY TAKE TO START
+    private void checkLatency() {
+        double p99Millis = latencies.getValueAtPercentile(99) / 1e6;
+        boolean over = p99Millis > SOUND_EFFECT_LATENCY_TARGET;
+        if (over && !overTarget) {
+            Logger.getLogger(SoundEffectService.class.getName()).log(Level.WARNING,
+                    "Sound effects are taking {0} ms to start at the 99th percentile, over the {1} ms target",
+                    new Object[]{p99Millis, SOUND_EFFECT_LATENCY_TARGET});
+        }
+        overTarget = over;
+    }
+}
@@ -0,0 +1,66 @@
+package regio_vinco;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class stores one entry in the stack of sub-regions left to find,
+ * just the data needed to draw it and none of the nodes. The stack view
+ * builds nodes only for the entries that are on screen.
+ *
+ * @author McKillaGorilla
+ */
+public class StackEntry {
+    private String subRegion;
+    private Color color;
+
+    // THE SUB-REGION'S FLAG, OR null IF IT'S SHOWN BY NAME
+    private Image flag;
+
+    // HOW TALL THE ENTRY IS IN THE STACK
+    private double height;
+
+    /**
+     * Constructs an entry that shows the sub-region's name.
+     */
+    public StackEntry(String initSubRegion, Color initColor) {
+        subRegion = initSubRegion;
+        color = initColor;
+        flag = null;
+        height = STACK_INIT_Y_INC;
+    }
+
+    /**
+     * Constructs an entry that shows the sub-region's flag, and so is as
+     * tall as the flag.
+     */
+    public StackEntry(String initSubRegion, Color initColor, Image initFlag) {
+        subRegion = initSubRegion;
+        color = initColor;
+        flag = initFlag;
+        height = initFlag.getHeight();
+    }
+
+    // ACCESSOR METHODS
+
+    public String getSubRegion() {
+        return subRegion;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public Image getFlag() {
+        return flag;
+    }
+
+    public boolean hasFlag() {
+        return flag != null;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,265 @@
+package regio_vinco;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * This class stores the records of every region in one journal file. The
+ * records are all held in memory, keyed by the region's path under the
+ * maps directory, and every change is appended to the journal as a single
+ * checksummed line. Appends are batched on a background thread, and the
+ * journal is rewritten with just the latest records once it has grown
+ * long enough.
+ *
+ * A crash can only ever leave a torn line at the end of the journal, which
+ * fails its checksum and is dropped when the journal is next opened, and
+ * the journal is only ever rewritten by writing a new file and moving it
+ * over the old one.
+ *
+ * @author McKillaGorilla
+ */
+public class StatisticsStore {
+    // HOW LONG CHANGES WAIT BEFORE THEY'RE WRITTEN, SO THEY GO OUT TOGETHER
+    private static final long WRITE_DELAY_MILLIS = 2000;
+
+    // THE JOURNAL IS REWRITTEN ONCE IT HAS THIS MANY RECORDS AND MOST OF
+    // THEM HAVE BEEN REPLACED BY LATER ONES
+    private static final int COMPACTION_THRESHOLD = 256;
+
+    // THE OLD PER-REGION FILES, WHICH ARE READ ONCE WHEN THERE'S NO JOURNAL
+    private static final String LEGACY_STATISTICS_SUFFIX = " Statistics.txt";
+
+    private File journalFile;
+    private String mapsPath;
+
+    // THE LATEST RECORDS OF EVERY REGION, BY ITS KEY
+    private ConcurrentHashMap<String, RegionStatistics> statistics;
+
+    // CHANGES NOT YET IN THE JOURNAL, AND HOW MANY LINES IT HAS
+    private ArrayList<String> pendingRecords;
+    private int journalRecords;
+
+    // APPENDS ARE DONE ON THIS THREAD
+    private ScheduledExecutorService writer;
+    private boolean writeScheduled;
+
+    /**
+     * Opens the store, reading the journal, or if there isn't one yet,
+     * starting one from the old per-region statistics files.
+     *
+     * @param journalPath Path to the journal file.
+     * @param initMapsPath The maps directory, which region keys are relative to.
+     */
+    public StatisticsStore(String journalPath, String initMapsPath) {
+        journalFile = new File(journalPath);
+        mapsPath = initMapsPath;
+        statistics = new ConcurrentHashMap();
+        pendingRecords = new ArrayList();
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Statistics Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (journalFile.exists()) {
+                if (!readJournal()) {
+                    compact();
+                }
+            } else {
+                importLegacyStatistics(new File(mapsPath));
+                compact();
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(StatisticsStore.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Gets the key a region's records are stored under, its path under the
+     * maps directory.
+     *
+     * @param regionDirectory The region's directory.
+     */
+    public String getRegionKey(String regionDirectory) {
+        String key = regionDirectory.replace(File.separatorChar, '/');
+        if (key.startsWith(mapsPath)) {
+            key = key.substring(mapsPath.length());
+        }
+        if (key.endsWith("/")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        return key;
+    }
+
+    /**
+     * Gets a region's records, without touching the disk.
+     *
+     * @param regionDirectory The region's directory.
+     * @return The region's records, which are all 0 if it has none.
+     */
+    public RegionStatistics get(String regionDirectory) {
+        RegionStatistics records = statistics.get(getRegionKey(regionDirectory));
+        return (records == null) ? RegionStatistics.NONE : records;
+    }
+
+    /**
+     * Replaces a region's records. They're written to the journal shortly
+     * after, along with any other changes made in the meantime.
+     *
+     * @param regionDirectory The region's directory.
+     * @param records The region's new records.
+     */
+    public synchronized void put(String regionDirectory, RegionStatistics records) {
+        String key = getRegionKey(regionDirectory);
+        statistics.put(key, records);
+        pendingRecords.add(toRecord(key, records));
+        if (!writeScheduled && !writer.isShutdown()) {
+            writeScheduled = true;
+            writer.schedule(this::flush, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Appends all changes not yet written to the journal and forces them to
+     * disk, rewriting the journal if it has grown long enough.
+     */
+    public synchronized void flush() {
+        writeScheduled = false;
+        if (pendingRecords.isEmpty()) {
+            return;
+        }
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (String record : pendingRecords) {
+                lines.append(record).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            journalRecords += pendingRecords.size();
+            pendingRecords.clear();
+            if ((journalRecords >= COMPACTION_THRESHOLD) && (journalRecords > (2 * statistics.size()))) {
+                compact();
+            }
+        } catch (IOException ex) {
+            Logger.getLogger(StatisticsStore.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Writes out all remaining changes and rewrites the journal with just
+     * the latest records. Called when the game exits.
+     */
+    public synchronized void close() {
+        writer.shutdown();
+        flush();
+        try {
+            compact();
+        } catch (IOException ex) {
+            Logger.getLogger(StatisticsStore.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    // HELPER METHOD FOR REPLAYING THE JOURNAL, RETURNING FALSE IF IT
+    // ENDS IN A TORN OR DAMAGED RECORD, WHICH IS DROPPED ALONG WITH
+    // ANYTHING AFTER IT
+    private boolean readJournal() throws IOException {
+        byte[] bytes = Files.readAllBytes(journalFile.toPath());
+        String journal = new String(bytes, StandardCharsets.UTF_8);
+        int start = 0;
+        while (start < journal.length()) {
+            int end = journal.indexOf('\n', start);
+            if (end < 0) {
+                return false;
+            }
+            String[] fields = journal.substring(start, end).split("\t");
+            if ((fields.length != 4) || !fields[3].equals(checksum(fields[0] + "\t" + fields[1] + "\t" + fields[2]))) {
+                return false;
+            }
+            try {
+                statistics.put(fields[0], new RegionStatistics(Integer.parseInt(fields[1]), Integer.parseInt(fields[2])));
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+            journalRecords++;
+            start = end + 1;
+        }
+        return true;
+    }
+
+    // HELPER METHOD FOR REWRITING THE JOURNAL WITH ONLY THE LATEST RECORDS.
+    // THE NEW JOURNAL IS FORCED TO DISK BEFORE IT REPLACES THE OLD ONE
+    private void compact() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, RegionStatistics> entry : statistics.entrySet()) {
+            lines.append(toRecord(entry.getKey(), entry.getValue())).append('\n');
+        }
+        File tempFile = new File(journalFile.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempFile.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journalRecords = statistics.size();
+    }
+
+    // HELPER METHOD FOR READING THE OLD PER-REGION STATISTICS FILES
+    private void importLegacyStatistics(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                importLegacyStatistics(file);
+            } else if (file.getName().endsWith(LEGACY_STATISTICS_SUFFIX)) {
+                try (BufferedReader fileReader = new BufferedReader(new FileReader(file))) {
+                    int highScore = Integer.parseInt(fileReader.readLine());
+                    int bestTime = Integer.parseInt(fileReader.readLine());
+                    statistics.put(getRegionKey(file.getParent() + "/"), new RegionStatistics(highScore, bestTime));
+                } catch (IOException | NumberFormatException ex) {
+                    Logger.getLogger(StatisticsStore.class.getName()).log(Level.WARNING, "Skipping " + file, ex);
+                }
+            }
+        }
+    }
+
+    // HELPER METHODS FOR JOURNAL RECORDS, WHICH ARE THE REGION KEY, HIGH
+    // SCORE, BEST TIME AND A CHECKSUM OF THE THREE, SEPARATED BY TABS
+    private static String toRecord(String key, RegionStatistics records) {
+        String fields = key + "\t" + records.getHighScore() + "\t" + records.getBestTime();
+        return fields + "\t" + checksum(fields);
+    }
+
+    private static String checksum(String fields) {
+        CRC32 crc = new CRC32();
+        crc.update(fields.getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
+    }
+}
@@ -0,0 +1,63 @@
+package regio_vinco;
+
+/**
+ * This class stores everything a region's Data.xml file says about one of
+ * its sub-regions: its name, capital and leader, and the key color its
+ * pixels have on the region's map. Attributes missing from the file are
+ * stored as null.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegion {
+    private String name;
+    private String capital;
+    private String leader;
+    private int red;
+    private int green;
+    private int blue;
+
+    /**
+     * Constructs a sub-region with all of its data.
+     */
+    public SubRegion(String initName, String initCapital, String initLeader, int initRed, int initGreen, int initBlue) {
+        name = initName;
+        capital = initCapital;
+        leader = initLeader;
+        red = initRed;
+        green = initGreen;
+        blue = initBlue;
+    }
+
+    // ACCESSOR METHODS
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCapital() {
+        return capital;
+    }
+
+    public String getLeader() {
+        return leader;
+    }
+
+    public int getRed() {
+        return red;
+    }
+
+    public int getGreen() {
+        return green;
+    }
+
+    public int getBlue() {
+        return blue;
+    }
+
+    /**
+     * Gets the key color of this sub-region as an opaque ARGB pixel.
+     */
+    public int getKeyArgb() {
+        return 0xFF000000 | ((red & 0xFF) << 16) | ((green & 0xFF) << 8) | (blue & 0xFF);
+    }
+}
@@ -0,0 +1,80 @@
+package regio_vinco;
+
+/**
+ * This class stores, for every pixel of a map image, the index of the
+ * sub-region that pixel belongs to. It is built once when a map is loaded so
+ * that clicks and mouse overs can be resolved with a single array read, no
+ * matter what color the region is currently painted on screen.
+ *
+ * Labels are stored as unsigned shorts, with 0 reserved for pixels that do
+ * not belong to any sub-region.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionLabelMap {
+    // THE LABEL USED FOR PIXELS OUTSIDE OF ALL SUB-REGIONS
+    public static final int NO_SUB_REGION = 0;
+
+    // THE LARGEST LABEL THAT FITS IN THE RASTER
+    public static final int MAX_LABEL = 0xFFFF;
+
+    // DIMENSIONS OF THE MAP THIS RASTER COVERS
+    private int width;
+    private int height;
+
+    // ONE LABEL PER PIXEL, STORED ROW BY ROW
+    private short[] labels;
+
+    /**
+     * Constructs an empty raster, with every pixel labeled NO_SUB_REGION.
+     *
+     * @param initWidth Width of the map in pixels.
+     * @param initHeight Height of the map in pixels.
+     */
+    public SubRegionLabelMap(int initWidth, int initHeight) {
+        width = initWidth;
+        height = initHeight;
+        labels = new short[width * height];
+    }
+
+    // ACCESSOR METHODS
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Provides direct access to the backing raster, row by row, for code
+     * that needs to walk every pixel.
+     *
+     * @return The label raster, indexed by (y * width) + x.
+     */
+    public short[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * Gets the sub-region label at the given map location. Locations outside
+     * the map are reported as NO_SUB_REGION.
+     *
+     * @param x The x coordinate on the map.
+     * @param y The y coordinate on the map.
+     * @return The label of the sub-region at (x, y).
+     */
+    public int getLabel(int x, int y) {
+        if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+            return NO_SUB_REGION;
+        }
+        return labels[(y * width) + x] & MAX_LABEL;
+    }
+
+    // MUTATOR METHODS
+
+    public void setLabel(int x, int y, int label) {
+        labels[(y * width) + x] = (short) label;
+    }
+}
@@ -0,0 +1,222 @@
+package regio_vinco;
+
+/**
+ * This class stores the pixels of every sub-region as horizontal runs, or
+ * spans, rather than one coordinate pair per pixel. All spans live in a few
+ * primitive arrays, grouped by sub-region label, so recoloring a sub-region
+ * costs one write per span instead of one write per pixel. Where each
+ * sub-region is, its bounding box, area and centroid, is worked out from
+ * the spans once, when they're built or read back.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionSpans {
+    // FOR LABEL l, ITS SPANS ARE firstSpan[l] UP TO firstSpan[l + 1]
+    private int[] firstSpan;
+
+    // THE ROW, STARTING COLUMN, AND LENGTH OF EACH SPAN
+    private int[] spanRows;
+    private int[] spanStarts;
+    private int[] spanLengths;
+
+    // THE NUMBER OF PIXELS IN EACH SUB-REGION, INDEXED BY LABEL
+    private int[] pixelCounts;
+
+    // THE LONGEST SPAN OF ANY SUB-REGION
+    private int maxSpanLength;
+
+    // THE BOX AROUND EACH SUB-REGION, INDEXED BY LABEL. NOTE THE RIGHT
+    // AND BOTTOM EDGES ARE JUST PAST ITS LAST COLUMN AND ROW
+    private int[] lefts;
+    private int[] tops;
+    private int[] rights;
+    private int[] bottoms;
+
+    // THE CENTER OF EACH SUB-REGION'S PIXELS, INDEXED BY LABEL
+    private double[] centroidXs;
+    private double[] centroidYs;
+
+    /**
+     * Constructs the spans from their already-built arrays, as when they
+     * are read back from a file.
+     */
+    public SubRegionSpans(int[] initFirstSpan, int[] initSpanRows, int[] initSpanStarts, int[] initSpanLengths) {
+        firstSpan = initFirstSpan;
+        spanRows = initSpanRows;
+        spanStarts = initSpanStarts;
+        spanLengths = initSpanLengths;
+        int numLabels = firstSpan.length - 2;
+        pixelCounts = new int[numLabels + 1];
+        lefts = new int[numLabels + 1];
+        tops = new int[numLabels + 1];
+        rights = new int[numLabels + 1];
+        bottoms = new int[numLabels + 1];
+        centroidXs = new double[numLabels + 1];
+        centroidYs = new double[numLabels + 1];
+        for (int label = 1; label <= numLabels; label++) {
+            int first = firstSpan[label];
+            int end = firstSpan[label + 1];
+            if (first == end) {
+                continue;
+            }
+
+            // THE SPANS RUN TOP TO BOTTOM, SO ONLY THE COLUMNS NEED SEARCHING
+            int left = Integer.MAX_VALUE;
+            int right = 0;
+            double sumX = 0;
+            double sumY = 0;
+            for (int span = first; span < end; span++) {
+                int start = spanStarts[span];
+                int length = spanLengths[span];
+                pixelCounts[label] += length;
+                maxSpanLength = Math.max(maxSpanLength, length);
+                left = Math.min(left, start);
+                right = Math.max(right, start + length);
+
+                // MEASURING FROM PIXEL CENTERS
+                sumX += length * (start + (length / 2.0));
+                sumY += length * (spanRows[span] + 0.5);
+            }
+            lefts[label] = left;
+            tops[label] = spanRows[first];
+            rights[label] = right;
+            bottoms[label] = spanRows[end - 1] + 1;
+            centroidXs[label] = sumX / pixelCounts[label];
+            centroidYs[label] = sumY / pixelCounts[label];
+        }
+    }
+
+    /**
+     * Builds the spans for every sub-region in a label raster.
+     *
+     * @param labelMap The labeled map.
+     * @param numLabels The number of sub-region labels in use.
+     * @return The spans of all sub-regions in the map.
+     */
+    public static SubRegionSpans build(SubRegionLabelMap labelMap, int numLabels) {
+        int width = labelMap.getWidth();
+        int height = labelMap.getHeight();
+        short[] labels = labelMap.getLabels();
+
+        // FIRST COUNT THE SPANS OF EACH LABEL SO WE CAN SIZE THE ARRAYS
+        int[] spanCounts = new int[numLabels + 1];
+        for (int row = 0; row < height; row++) {
+            int rowStart = row * width;
+            int x = 0;
+            while (x < width) {
+                int label = labels[rowStart + x] & SubRegionLabelMap.MAX_LABEL;
+                int end = x + 1;
+                while ((end < width) && ((labels[rowStart + end] & SubRegionLabelMap.MAX_LABEL) == label)) {
+                    end++;
+                }
+                spanCounts[label]++;
+                x = end;
+            }
+        }
+        int[] first = new int[numLabels + 2];
+        for (int label = 1; label <= numLabels; label++) {
+            first[label + 1] = first[label] + spanCounts[label];
+        }
+
+        // THEN FILL THEM IN, SKIPPING PIXELS OUTSIDE ALL SUB-REGIONS
+        int numSpans = first[numLabels + 1];
+        int[] rows = new int[numSpans];
+        int[] starts = new int[numSpans];
+        int[] lengths = new int[numSpans];
+        int[] next = new int[numLabels + 1];
+        System.arraycopy(first, 0, next, 0, numLabels + 1);
+        for (int row = 0; row < height; row++) {
+            int rowStart = row * width;
+            int x = 0;
+            while (x < width) {
+                int label = labels[rowStart + x] & SubRegionLabelMap.MAX_LABEL;
+                int end = x + 1;
+                while ((end < width) && ((labels[rowStart + end] & SubRegionLabelMap.MAX_LABEL) == label)) {
+                    end++;
+                }
+                if (label != SubRegionLabelMap.NO_SUB_REGION) {
+                    int span = next[label]++;
+                    rows[span] = row;
+                    starts[span] = x;
+                    lengths[span] = end - x;
+                }
+                x = end;
+            }
+        }
+        return new SubRegionSpans(first, rows, starts, lengths);
+    }
+
+    // ACCESSOR METHODS
+
+    public int getNumLabels() {
+        return firstSpan.length - 2;
+    }
+
+    public int getNumSpans() {
+        return spanRows.length;
+    }
+
+    /**
+     * Gets the index of the first span of a sub-region.
+     */
+    public int getFirstSpan(int label) {
+        return firstSpan[label];
+    }
+
+    /**
+     * Gets the index just past the last span of a sub-region.
+     */
+    public int getEndSpan(int label) {
+        return firstSpan[label + 1];
+    }
+
+    public int getSpanRow(int span) {
+        return spanRows[span];
+    }
+
+    public int getSpanStart(int span) {
+        return spanStarts[span];
+    }
+
+    public int getSpanLength(int span) {
+        return spanLengths[span];
+    }
+
+    public int getPixelCount(int label) {
+        return pixelCounts[label];
+    }
+
+    public int getMaxSpanLength() {
+        return maxSpanLength;
+    }
+
+    public int getLeft(int label) {
+        return lefts[label];
+    }
+
+    public int getTop(int label) {
+        return tops[label];
+    }
+
+    /**
+     * Gets the column just past the right edge of a sub-region.
+     */
+    public int getRight(int label) {
+        return rights[label];
+    }
+
+    /**
+     * Gets the row just past the bottom edge of a sub-region.
+     */
+    public int getBottom(int label) {
+        return bottoms[label];
+    }
+
+    public double getCentroidX(int label) {
+        return centroidXs[label];
+    }
+
+    public double getCentroidY(int label) {
+        return centroidYs[label];
+    }
+}
@@ -0,0 +1,156 @@
+package regio_vinco;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import javafx.scene.Group;
+import javafx.scene.effect.Blend;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.effect.ColorInput;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * This class cuts every sub-region of a map into its own sprite, an alpha
+ * mask just big enough to hold it, so that a sub-region can be recolored by
+ * giving its sprite a color effect rather than by rewriting its pixels. The
+ * sprites lie over the map and are hidden until recolored, and each one's
+ * effect covers only its own box, so recoloring and restoring a sub-region
+ * only ever redraws that sub-region, and the compositing is left to the
+ * graphics pipeline.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionSprites {
+    // AN OPAQUE PIXEL IN A MASK, WHICH THE COLOR EFFECT PAINTS OVER
+    private static final int MASK_PIXEL = 0xFFFFFFFF;
+
+    // EACH SUB-REGION'S SPRITE, INDEXED BY LABEL, null FOR A LABEL WITH
+    // NO PIXELS
+    private ImageView[] sprites;
+
+    // ALL THE SPRITES, LAID OUT LIKE THE MAP AND NEVER TAKING THE MOUSE
+    private Group group;
+
+    // EACH SPRITE'S EFFECTS, ONE FOR EACH COLOR IT'S BEEN SHOWN IN,
+    // INDEXED BY LABEL. AN EFFECT COVERS JUST ITS SPRITE'S BOX, SINCE
+    // A SPRITE IS DRAWN AS BIG AS ITS EFFECT
+    private HashMap<Color, Blend>[] effects;
+
+    /**
+     * Constructs the sprites from their already-built image views.
+     */
+    public SubRegionSprites(ImageView[] initSprites) {
+        sprites = initSprites;
+        effects = new HashMap[sprites.length];
+        group = new Group();
+        group.setMouseTransparent(true);
+        for (ImageView sprite : sprites) {
+            if (sprite != null) {
+                group.getChildren().add(sprite);
+            }
+        }
+    }
+
+    /**
+     * Builds the sprites for every sub-region of a map from its spans. Note
+     * that this doesn't need the JavaFX thread, so it's done while the map
+     * loads.
+     *
+     * @param spans The spans of every sub-region in the map.
+     * @return The sprites, all hidden.
+     */
+    public static SubRegionSprites build(SubRegionSpans spans) {
+        int numLabels = spans.getNumLabels();
+        ImageView[] sprites = new ImageView[numLabels + 1];
+        for (int label = 1; label <= numLabels; label++) {
+            int firstSpan = spans.getFirstSpan(label);
+            int endSpan = spans.getEndSpan(label);
+            if (firstSpan == endSpan) {
+                continue;
+            }
+
+            // CUT THE MASK OUT OF THE BOX AROUND THE SUB-REGION
+            int left = spans.getLeft(label);
+            int top = spans.getTop(label);
+            int spriteWidth = spans.getRight(label) - left;
+            int spriteHeight = spans.getBottom(label) - top;
+            int[] mask = new int[spriteWidth * spriteHeight];
+            for (int span = firstSpan; span < endSpan; span++) {
+                int start = ((spans.getSpanRow(span) - top) * spriteWidth) + spans.getSpanStart(span) - left;
+                Arrays.fill(mask, start, start + spans.getSpanLength(span), MASK_PIXEL);
+            }
+            WritableImage image = new WritableImage(spriteWidth, spriteHeight);
+            image.getPixelWriter().setPixels(0, 0, spriteWidth, spriteHeight, PixelFormat.getIntArgbInstance(), mask, 0, spriteWidth);
+            ImageView sprite = new ImageView(image);
+            sprite.setX(left);
+            sprite.setY(top);
+            sprite.setVisible(false);
+            sprites[label] = sprite;
+        }
+        return new SubRegionSprites(sprites);
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    /**
+     * Shows a sub-region in a color, over whatever the map has there.
+     *
+     * @param label The sub-region's label.
+     * @param color The color to show it in.
+     */
+    public void setColor(int label, Color color) {
+        ImageView sprite = sprites[label];
+        if (sprite != null) {
+            sprite.setEffect(getEffect(label, color));
+            sprite.setVisible(true);
+        }
+    }
+
+    /**
+     * Shows a sub-region the way the map has it again.
+     *
+     * @param label The sub-region's label.
+     */
+    public void restore(int label) {
+        ImageView sprite = sprites[label];
+        if (sprite != null) {
+            sprite.setVisible(false);
+        }
+    }
+
+    /**
+     * Shows every sub-region the way the map has it again.
+     */
+    public void restoreAll() {
+        for (ImageView sprite : sprites) {
+            if (sprite != null) {
+                sprite.setVisible(false);
+            }
+        }
+    }
+
+    // HELPER METHOD FOR GETTING THE EFFECT THAT PAINTS A SPRITE'S OPAQUE
+    // PIXELS IN A COLOR, MAKING IT THE FIRST TIME THE SPRITE IS SHOWN IN
+    // THAT COLOR
+    private Blend getEffect(int label, Color color) {
+        HashMap<Color, Blend> spriteEffects = effects[label];
+        if (spriteEffects == null) {
+            spriteEffects = new HashMap();
+            effects[label] = spriteEffects;
+        }
+        Blend effect = spriteEffects.get(color);
+        if (effect == null) {
+            ImageView sprite = sprites[label];
+            Image image = sprite.getImage();
+            effect = new Blend(BlendMode.SRC_ATOP, null,
+                    new ColorInput(sprite.getX(), sprite.getY(), image.getWidth(), image.getHeight(), color));
+            spriteEffects.put(color, effect);
+        }
+        return effect;
+    }
+}
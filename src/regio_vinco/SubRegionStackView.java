@@ -0,0 +1,210 @@
+package regio_vinco;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import javafx.scene.CacheHint;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import static regio_vinco.RegioVinco.*;
+
+/**
+ * This class shows the stack of sub-regions left to find. The stack itself
+ * is just data, and only the entries that are on screen get nodes, which
+ * are reused as entries come and go, so a map with hundreds of sub-regions
+ * puts no more in the scene than one with a dozen. All the nodes sit in
+ * one group and the whole stack slides down by moving just that group.
+ * Entries may be of different heights, since flags are.
+ *
+ * @author McKillaGorilla
+ */
+public class SubRegionStackView {
+    // EVERY ROW'S NODES
+    private Group group;
+
+    // THE GAME THE STACK IS FOR
+    private int gameType;
+
+    // EVERY ENTRY THE GAME STARTED WITH, BOTTOM FIRST, AND WHERE THE
+    // BOTTOM OF EACH ONE SITS IN THE GROUP
+    private StackEntry[] entries;
+    private double[] bottoms;
+
+    // HOW MANY ENTRIES HAVE BEEN TAKEN OFF THE BOTTOM, AND THE LOWEST
+    // ENTRY THAT DOESN'T HAVE A ROW YET
+    private int removed;
+    private int firstUnbound;
+
+    // THE ROWS SHOWING ENTRIES, BOTTOM FIRST, AND THE ROWS WAITING TO BE
+    // REUSED
+    private ArrayDeque<MovableText> boundRows;
+    private ArrayDeque<MovableText> freeRows;
+
+    // HOW FAR THE STACK HAS SLID DOWN, AND HOW FAR IT'S SLIDING TO
+    private double offset;
+    private double targetOffset;
+
+    /**
+     * Constructs an empty stack.
+     */
+    public SubRegionStackView() {
+        group = new Group();
+        group.setMouseTransparent(true);
+        entries = new StackEntry[0];
+        bottoms = new double[0];
+        boundRows = new ArrayDeque();
+        freeRows = new ArrayDeque();
+    }
+
+    public Group getGroup() {
+        return group;
+    }
+
+    /**
+     * Shows a new game's stack, bottom entry first, replacing whatever was
+     * shown before.
+     *
+     * @param stack The stack's entries.
+     * @param initGameType The game being played.
+     */
+    public void setStack(List<StackEntry> stack, int initGameType) {
+        gameType = initGameType;
+        while (!boundRows.isEmpty()) {
+            release(boundRows.removeFirst());
+        }
+
+        // LAY OUT THE WHOLE STACK, WHICH IS JUST ARITHMETIC, KEEPING THE
+        // BOTTOM WHERE IT HAS ALWAYS BEEN
+        entries = stack.toArray(new StackEntry[stack.size()]);
+        bottoms = new double[entries.length];
+        double bottom = STACK_INIT_Y;
+        if (gameType != 4) {
+            bottom += STACK_INIT_Y_INC - STACK_TEXT_Y_OFFSET;
+        }
+        for (int i = 0; i < entries.length; i++) {
+            bottoms[i] = bottom;
+            bottom -= entries[i].getHeight();
+        }
+
+        removed = 0;
+        firstUnbound = 0;
+        offset = 0;
+        targetOffset = 0;
+        group.setTranslateY(0);
+        bindVisible();
+    }
+
+    /**
+     * Takes the bottom entry off the stack, which then slides down to fill
+     * the gap it left.
+     */
+    public void removeBottom() {
+        if (removed == entries.length) {
+            return;
+        }
+        if (firstUnbound > removed) {
+            release(boundRows.removeFirst());
+        }
+        targetOffset += entries[removed].getHeight();
+        removed++;
+        firstUnbound = Math.max(firstUnbound, removed);
+        if (!boundRows.isEmpty()) {
+            highlight(boundRows.getFirst());
+        }
+    }
+
+    /**
+     * Called each frame, this slides the stack down toward where it
+     * should be, SUB_STACK_VELOCITY pixels at a time, giving rows to the
+     * entries that slide into view.
+     */
+    public void update() {
+        if (offset < targetOffset) {
+            offset = Math.min(targetOffset, offset + SUB_STACK_VELOCITY);
+            group.setTranslateY(offset);
+            bindVisible();
+        }
+    }
+
+    // HELPER METHOD FOR GIVING A ROW TO EVERY ENTRY THAT HAS SLID INTO
+    // VIEW, WHICH IS ONCE ITS BOTTOM IS BELOW THE TOP OF THE WINDOW
+    private void bindVisible() {
+        while ((firstUnbound < entries.length) && (bottoms[firstUnbound] + offset > 0)) {
+            bind(firstUnbound);
+            firstUnbound++;
+        }
+    }
+
+    // HELPER METHOD FOR SHOWING AN ENTRY IN A ROW, REUSING ONE IF WE CAN
+    private void bind(int index) {
+        MovableText row = freeRows.isEmpty() ? makeRow() : freeRows.removeFirst();
+        StackEntry entry = entries[index];
+        double top = bottoms[index] - entry.getHeight();
+
+        Rectangle rectangle = row.getRectangle();
+        rectangle.setY(top);
+        rectangle.setHeight(entry.getHeight());
+        rectangle.setFill(entry.getColor());
+        rectangle.setVisible(true);
+
+        Text text = row.getText();
+        ImageView imageView = row.getImageView();
+        if ((gameType == 4) && entry.hasFlag()) {
+            imageView.setImage(entry.getFlag());
+            imageView.setY(top);
+            imageView.setVisible(true);
+            text.setVisible(false);
+        } else {
+            text.setText(entry.getSubRegion());
+            text.setY(top + STACK_TEXT_Y_OFFSET);
+            text.setFill(Color.YELLOW);
+            text.setVisible(true);
+        }
+        boundRows.addLast(row);
+        if (index == removed) {
+            highlight(row);
+        }
+    }
+
+    // HELPER METHOD FOR PUTTING A ROW ASIDE TO BE REUSED
+    private void release(MovableText row) {
+        row.getRectangle().setVisible(false);
+        row.getText().setVisible(false);
+        row.getImageView().setVisible(false);
+        row.getImageView().setImage(null);
+        freeRows.addLast(row);
+    }
+
+    // HELPER METHOD FOR MAKING A NEW ROW'S NODES, ALL CACHED AS BITMAPS
+    // SINCE THEY ONLY CHANGE WHEN THE ROW IS REUSED
+    private MovableText makeRow() {
+        Text text = new Text();
+        text.setStyle("-fx-font: 25px Calibri");
+        text.setX(STACK_X);
+        ImageView imageView = new ImageView();
+        imageView.setX(STACK_X + 50);
+        MovableText row = new MovableText(text);
+        row.getImageView(imageView);
+        row.getRectangle().setX(STACK_X);
+        group.getChildren().add(cached(row.getRectangle()));
+        group.getChildren().add(cached(text));
+        group.getChildren().add(cached(imageView));
+        return row;
+    }
+
+    // HELPER METHOD FOR MARKING THE ROW SHOWING THE ENTRY TO FIND NEXT
+    private void highlight(MovableText row) {
+        row.getText().setFill(Color.RED);
+        row.getRectangle().setFill(Color.GREEN);
+    }
+
+    // HELPER METHOD FOR TURNING ON BITMAP CACHING FOR A NODE
+    private static Node cached(Node node) {
+        node.setCache(true);
+        node.setCacheHint(CacheHint.SPEED);
+        return node;
+    }
+}